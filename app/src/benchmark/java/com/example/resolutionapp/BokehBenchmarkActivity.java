@@ -0,0 +1,28 @@
+package com.example.resolutionapp;
+
+import android.graphics.Color;
+import android.os.Bundle;
+import androidx.appcompat.app.AppCompatActivity;
+
+/**
+ * Plays the completion bokeh for 5 seconds on its own, with the glow sprites
+ * or plain circles, so BokehBenchmark can compare the two draw paths. Only
+ * part of the benchmark build.
+ */
+public class BokehBenchmarkActivity extends AppCompatActivity {
+
+    static final String EXTRA_SPRITES = "SPRITES";
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        BokehView bokehView = new BokehView(this);
+        bokehView.setId(R.id.bokehView);
+        bokehView.setBackgroundColor(Color.BLACK);
+        bokehView.setUseSprites(getIntent().getBooleanExtra(EXTRA_SPRITES, true));
+        setContentView(bokehView);
+
+        bokehView.startAnimation();
+        bokehView.postDelayed(bokehView::stopAnimation, 5000);
+    }
+}
@@ -1,40 +1,52 @@
 package com.example.resolutionapp;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.RectF;
+import android.graphics.Shader;
 import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.View;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
-public class BokehView extends View {
-
-    private class Particle {
-        float x, y;
-        float radius;
-        int alpha;
-        float speedX, speedY;
-        int color;
-
-        public Particle(float x, float y, float radius, int alpha, int color) {
-            this.x = x;
-            this.y = y;
-            this.radius = radius;
-            this.alpha = alpha;
-            this.color = color;
-            // Improved movement
-            this.speedX = (float) (Math.random() * 6 - 3); // -3 to 3
-            this.speedY = (float) (Math.random() * 6 - 3); // -3 to 3
-        }
-    }
+public class BokehView extends View implements Choreographer.FrameCallback {
+
+    private static final int MAX_PARTICLES = 80;
+    // Sprites are drawn scaled, so this only needs to be large enough to look smooth
+    private static final int SPRITE_RADIUS = 64;
+    private static final int MIN_PARTICLES = 20;
+    private static final float BASE_REFRESH_RATE = 60f;
+
+    // Rates are per second, tuned to match the old per-frame values at 60 Hz
+    private static final float MAX_SPEED = 180f; // -180 to 180 px/s
+    private static final float FADE_PER_SECOND = 60f;
+    // Longest step we simulate, so a stalled frame doesn't teleport particles
+    private static final float MAX_STEP_SECONDS = 0.05f;
+    // Share of the frame interval the animation may spend on the CPU
+    private static final float FRAME_BUDGET_FRACTION = 0.25f;
+
+    // Particle state as parallel arrays, allocated once
+    private final float[] x = new float[MAX_PARTICLES];
+    private final float[] y = new float[MAX_PARTICLES];
+    private final float[] radius = new float[MAX_PARTICLES];
+    private final float[] speedX = new float[MAX_PARTICLES];
+    private final float[] speedY = new float[MAX_PARTICLES];
+    private final float[] alpha = new float[MAX_PARTICLES];
+    private final int[] colorIndex = new int[MAX_PARTICLES];
+    private int particleCount;
 
-    private List<Particle> particles = new ArrayList<>();
     private Paint paint;
-    private boolean isAnimating = false;
-    private Random random = new Random();
+    private final Paint spritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF spriteDst = new RectF();
+    private Bitmap[] sprites;
+    private boolean useSprites = true;
+    private volatile boolean isAnimating = false;
+    private final Random random = new Random();
     private int[] colors = {
             Color.parseColor("#FFD700"), // Gold
             Color.parseColor("#FFFFFF"), // White
@@ -42,6 +54,12 @@ public class BokehView extends View {
             Color.parseColor("#00BFFF") // DeepSkyBlue
     };
 
+    private long lastFrameNanos;
+    private long frameIntervalNanos;
+    private long stepNanos;
+    // Measured in onDraw, acted on in the next doFrame
+    private long drawNanos;
+
     public BokehView(Context context) {
         super(context);
         init();
@@ -58,6 +76,39 @@ public class BokehView extends View {
         paint.setAntiAlias(true);
     }
 
+    /** Switches between sprite and plain circle rendering; BokehBenchmark compares the two. */
+    public void setUseSprites(boolean useSprites) {
+        this.useSprites = useSprites;
+        invalidate();
+    }
+
+    // One soft-glow bitmap per palette color, tinted per particle by paint alpha only
+    private void ensureSprites() {
+        if (sprites != null)
+            return;
+        sprites = new Bitmap[colors.length];
+        Paint glowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        for (int i = 0; i < colors.length; i++) {
+            int c = colors[i];
+            Bitmap sprite = Bitmap.createBitmap(SPRITE_RADIUS * 2, SPRITE_RADIUS * 2, Bitmap.Config.ARGB_8888);
+            glowPaint.setShader(new RadialGradient(SPRITE_RADIUS, SPRITE_RADIUS, SPRITE_RADIUS,
+                    new int[] { c, c, c & 0x00FFFFFF },
+                    new float[] { 0f, 0.55f, 1f },
+                    Shader.TileMode.CLAMP));
+            new Canvas(sprite).drawCircle(SPRITE_RADIUS, SPRITE_RADIUS, SPRITE_RADIUS, glowPaint);
+            sprites[i] = sprite;
+        }
+    }
+
+    private void releaseSprites() {
+        if (sprites == null)
+            return;
+        for (Bitmap sprite : sprites) {
+            sprite.recycle();
+        }
+        sprites = null;
+    }
+
     public void startAnimation() {
         setVisibility(VISIBLE);
 
@@ -67,29 +118,104 @@ public class BokehView extends View {
             return;
         }
 
-        particles.clear();
-        int particleCount = 80;
+        // Fewer particles on high refresh displays, where each frame has less time
+        float refreshRate = BASE_REFRESH_RATE;
+        Display display = getDisplay();
+        if (display != null && display.getRefreshRate() > 0) {
+            refreshRate = display.getRefreshRate();
+        }
+        frameIntervalNanos = (long) (1_000_000_000L / refreshRate);
+        particleCount = Math.max(MIN_PARTICLES,
+                Math.min(MAX_PARTICLES, (int) (MAX_PARTICLES * BASE_REFRESH_RATE / refreshRate)));
+
         for (int i = 0; i < particleCount; i++) {
-            particles.add(createParticle());
+            resetParticle(i);
+            alpha[i] = 100 + random.nextInt(155); // 100 to 255
+        }
+        ensureSprites();
+
+        if (!isAnimating) {
+            isAnimating = true;
+            lastFrameNanos = 0;
+            stepNanos = 0;
+            drawNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
         }
-        isAnimating = true;
         invalidate();
     }
 
+    public boolean isAnimating() {
+        return isAnimating;
+    }
+
     public void stopAnimation() {
         isAnimating = false;
-        particles.clear();
+        particleCount = 0;
+        Choreographer.getInstance().removeFrameCallback(this);
         setVisibility(GONE);
         invalidate();
     }
 
-    private Particle createParticle() {
-        float x = random.nextFloat() * getWidth();
-        float y = random.nextFloat() * getHeight();
-        float radius = 20 + random.nextFloat() * 60; // 20 to 80 radius
-        int alpha = 100 + random.nextInt(155); // 100 to 255
-        int color = colors[random.nextInt(colors.length)];
-        return new Particle(x, y, radius, alpha, color);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        Choreographer.getInstance().removeFrameCallback(this);
+        isAnimating = false;
+        releaseSprites();
+    }
+
+    private void resetParticle(int i) {
+        x[i] = random.nextFloat() * getWidth();
+        y[i] = random.nextFloat() * getHeight();
+        radius[i] = 20 + random.nextFloat() * 60; // 20 to 80 radius
+        alpha[i] = 255;
+        colorIndex[i] = random.nextInt(colors.length);
+        speedX[i] = (random.nextFloat() * 2 - 1) * MAX_SPEED;
+        speedY[i] = (random.nextFloat() * 2 - 1) * MAX_SPEED;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!isAnimating)
+            return;
+
+        // Last frame's cost decides this frame's particle count
+        adjustParticleCount(stepNanos + drawNanos);
+
+        long start = System.nanoTime();
+        float dt = lastFrameNanos == 0 ? 0f : (frameTimeNanos - lastFrameNanos) / 1_000_000_000f;
+        lastFrameNanos = frameTimeNanos;
+        step(Math.min(dt, MAX_STEP_SECONDS));
+        stepNanos = System.nanoTime() - start;
+
+        invalidate();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void step(float dt) {
+        float fade = FADE_PER_SECOND * dt;
+        for (int i = 0; i < particleCount; i++) {
+            // Update position
+            x[i] += speedX[i] * dt;
+            y[i] += speedY[i] * dt;
+
+            // Fade out, then respawn elsewhere
+            alpha[i] -= fade;
+            if (alpha[i] <= 0) {
+                resetParticle(i);
+            }
+        }
+    }
+
+    // Drop particles when a frame's CPU work overruns its budget, recover slowly
+    private void adjustParticleCount(long frameWorkNanos) {
+        long budget = (long) (frameIntervalNanos * FRAME_BUDGET_FRACTION);
+        if (frameWorkNanos > budget && particleCount > MIN_PARTICLES) {
+            particleCount = Math.max(MIN_PARTICLES, particleCount - 4);
+        } else if (frameWorkNanos < budget / 2 && particleCount < MAX_PARTICLES) {
+            resetParticle(particleCount);
+            particleCount++;
+        }
     }
 
     @Override
@@ -98,28 +224,25 @@ public class BokehView extends View {
         if (!isAnimating)
             return;
 
-        for (Particle p : particles) {
-            paint.setColor(p.color);
-            paint.setAlpha(p.alpha);
-            canvas.drawCircle(p.x, p.y, p.radius, paint);
+        long start = System.nanoTime();
+        drawParticles(canvas);
+        drawNanos = System.nanoTime() - start;
+    }
 
-            // Update position
-            p.x += p.speedX;
-            p.y += p.speedY;
-
-            // Fade out or blink
-            p.alpha -= 1;
-            if (p.alpha <= 0) {
-                // Reset particle
-                Particle newP = createParticle();
-                p.x = newP.x;
-                p.y = newP.y;
-                p.alpha = 255;
-                p.radius = newP.radius;
-                p.color = newP.color;
+    private void drawParticles(Canvas canvas) {
+        if (useSprites && sprites != null) {
+            for (int i = 0; i < particleCount; i++) {
+                float r = radius[i];
+                spriteDst.set(x[i] - r, y[i] - r, x[i] + r, y[i] + r);
+                spritePaint.setAlpha((int) alpha[i]);
+                canvas.drawBitmap(sprites[colorIndex[i]], null, spriteDst, spritePaint);
+            }
+        } else {
+            for (int i = 0; i < particleCount; i++) {
+                paint.setColor(colors[colorIndex[i]]);
+                paint.setAlpha((int) alpha[i]);
+                canvas.drawCircle(x[i], y[i], radius[i], paint);
             }
         }
-
-        invalidate(); // Loop
     }
 }
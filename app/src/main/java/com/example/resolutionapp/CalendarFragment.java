@@ -4,51 +4,108 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.viewpager2.widget.ViewPager2;
+import com.example.resolutionapp.data.DayDataRepository;
+import com.example.resolutionapp.data.MonthSummaryCache;
+import com.example.resolutionapp.model.DateKey;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
 
 public class CalendarFragment extends Fragment {
+
+    private ViewPager2 vpMonths;
+    private TextView tvMonthTitle;
+    private MonthPagerAdapter adapter;
+    private MonthSummaryCache summaryCache;
+    private boolean firstResume = true;
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_calendar, container, false);
 
-        android.widget.CalendarView calendarView = view.findViewById(R.id.calendarView);
-        calendarView.setOnDateChangeListener((view1, year, month, dayOfMonth) -> {
-            // Month is 0-indexed
-            String selectedDate = String.format(java.util.Locale.getDefault(), "%04d-%02d-%02d", year, (month + 1),
-                    dayOfMonth);
-
-            java.util.Calendar today = java.util.Calendar.getInstance();
-            java.util.Calendar selected = java.util.Calendar.getInstance();
-            selected.set(year, month, dayOfMonth);
-
-            // normalize to start of day
-            today.set(java.util.Calendar.HOUR_OF_DAY, 0);
-            today.set(java.util.Calendar.MINUTE, 0);
-            today.set(java.util.Calendar.SECOND, 0);
-            today.set(java.util.Calendar.MILLISECOND, 0); // Important for comparison
-
-            selected.set(java.util.Calendar.HOUR_OF_DAY, 0);
-            selected.set(java.util.Calendar.MINUTE, 0);
-            selected.set(java.util.Calendar.SECOND, 0);
-            selected.set(java.util.Calendar.MILLISECOND, 0);
-
-            if (selected.after(today)) {
-                android.widget.Toast
-                        .makeText(getContext(), "Future selection not allowed!", android.widget.Toast.LENGTH_SHORT)
-                        .show();
-            } else {
-                android.content.Intent intent = new android.content.Intent(getContext(),
-                        DailyResolutionsActivity.class);
-                intent.putExtra("DATE", selectedDate);
-                intent.putExtra("IS_PAST", selected.before(today));
-                startActivity(intent);
+        summaryCache = MonthSummaryCache.getInstance();
+        tvMonthTitle = view.findViewById(R.id.tvMonthTitle);
+        vpMonths = view.findViewById(R.id.vpMonths);
+
+        adapter = new MonthPagerAdapter(summaryCache, this::onDateSelected);
+        vpMonths.setAdapter(adapter);
+        // Keep the neighbouring months bound so a swipe lands on a drawn page
+        vpMonths.setOffscreenPageLimit(1);
+        vpMonths.setCurrentItem(MonthPagerAdapter.getCurrentMonthPosition(), false);
+        vpMonths.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
+            @Override
+            public void onPageSelected(int position) {
+                updateMonthTitle(position);
+                prefetchAround(position);
             }
         });
+        updateMonthTitle(vpMonths.getCurrentItem());
+
+        view.findViewById(R.id.btnPrevMonth).setOnClickListener(v -> {
+            if (vpMonths.getCurrentItem() > 0)
+                vpMonths.setCurrentItem(vpMonths.getCurrentItem() - 1);
+        });
+        view.findViewById(R.id.btnNextMonth).setOnClickListener(v -> {
+            if (vpMonths.getCurrentItem() < adapter.getItemCount() - 1)
+                vpMonths.setCurrentItem(vpMonths.getCurrentItem() + 1);
+        });
 
         return view;
     }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        if (firstResume) {
+            firstResume = false;
+            return;
+        }
+        // Resolutions or habits may have changed in another screen
+        summaryCache.invalidate();
+        int position = vpMonths.getCurrentItem();
+        int start = Math.max(0, position - 1);
+        adapter.notifyItemRangeChanged(start, Math.min(adapter.getItemCount(), position + 2) - start);
+    }
+
+    private void updateMonthTitle(int position) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(MonthPagerAdapter.getYear(position), MonthPagerAdapter.getMonth(position), 1);
+        tvMonthTitle.setText(new SimpleDateFormat("MMMM yyyy", Locale.getDefault()).format(cal.getTime()));
+    }
+
+    // The neighbours are already bound (and fetched) as offscreen pages, so only warm the ones past them
+    private void prefetchAround(int position) {
+        for (int p : new int[] { position - 2, position + 2 }) {
+            if (p >= 0 && p < adapter.getItemCount())
+                summaryCache.prefetch(MonthPagerAdapter.getYear(p), MonthPagerAdapter.getMonth(p));
+        }
+    }
+
+    private void onDateSelected(int year, int month, int dayOfMonth) {
+        // Month is 0-indexed
+        DateKey selected = DateKey.of(year, month, dayOfMonth);
+        DateKey today = DateKey.today();
+
+        if (selected.isAfter(today)) {
+            android.widget.Toast
+                    .makeText(getContext(), "Future selection not allowed!", android.widget.Toast.LENGTH_SHORT)
+                    .show();
+        } else {
+            // Start loading the day while the activity is being created
+            DayDataRepository.getInstance().prefetch(selected);
+            android.content.Intent intent = new android.content.Intent(getContext(),
+                    DailyResolutionsActivity.class);
+            intent.putExtra("DATE", selected.toString());
+            intent.putExtra("IS_PAST", selected.isBefore(today));
+            startActivity(intent);
+        }
+    }
 }
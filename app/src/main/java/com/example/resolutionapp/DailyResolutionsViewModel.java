@@ -0,0 +1,88 @@
+package com.example.resolutionapp;
+
+import androidx.lifecycle.ViewModel;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.model.Habit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Holds the checklist for one day across configuration changes. Completion is
+ * kept as a set so toggling a habit never has to walk the rows on screen.
+ */
+public class DailyResolutionsViewModel extends ViewModel {
+
+    private DateKey date;
+    private List<Habit> scheduledHabits = new ArrayList<>();
+    private final Set<String> completedIds = new HashSet<>();
+    private boolean habitsLoaded;
+    private boolean resolutionsLoaded;
+
+    /** Returns false if this model already holds data for a different date. */
+    public boolean bind(DateKey date) {
+        if (date != null && date.equals(this.date))
+            return true;
+        this.date = date;
+        scheduledHabits = new ArrayList<>();
+        completedIds.clear();
+        habitsLoaded = false;
+        resolutionsLoaded = false;
+        return false;
+    }
+
+    public List<Habit> getScheduledHabits() {
+        return scheduledHabits;
+    }
+
+    public void setScheduledHabits(List<Habit> habits) {
+        scheduledHabits = new ArrayList<>(habits);
+        habitsLoaded = true;
+    }
+
+    public boolean isHabitsLoaded() {
+        return habitsLoaded;
+    }
+
+    public boolean isResolutionsLoaded() {
+        return resolutionsLoaded;
+    }
+
+    public Set<String> getCompletedIds() {
+        return completedIds;
+    }
+
+    public void setCompletedIds(Collection<String> ids) {
+        completedIds.clear();
+        if (ids != null)
+            completedIds.addAll(ids);
+        resolutionsLoaded = true;
+    }
+
+    /** Returns true if the completion state actually changed. */
+    public boolean setCompleted(String habitId, boolean completed) {
+        return completed ? completedIds.add(habitId) : completedIds.remove(habitId);
+    }
+
+    // Only habits shown for this date are persisted, in display order
+    public List<String> getCompletedScheduledIds() {
+        List<String> ids = new ArrayList<>();
+        for (Habit habit : scheduledHabits) {
+            if (completedIds.contains(habit.getId()))
+                ids.add(habit.getId());
+        }
+        return ids;
+    }
+
+    public boolean isAllCompleted() {
+        if (scheduledHabits.isEmpty())
+            return false;
+        for (Habit habit : scheduledHabits) {
+            if (!completedIds.contains(habit.getId()))
+                return false;
+        }
+        return true;
+    }
+}
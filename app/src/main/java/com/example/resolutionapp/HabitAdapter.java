@@ -6,27 +6,43 @@ import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.resolutionapp.model.Habit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
-public class HabitAdapter extends RecyclerView.Adapter<HabitAdapter.HabitViewHolder> {
+public class HabitAdapter extends ListAdapter<Habit, HabitAdapter.HabitViewHolder> {
 
-    private List<Habit> habits;
     private final OnDeleteClickListener deleteListener;
 
     public interface OnDeleteClickListener {
         void onDeleteClick(Habit habit);
     }
 
-    public HabitAdapter(List<Habit> habits, OnDeleteClickListener deleteListener) {
-        this.habits = habits;
+    private static final DiffUtil.ItemCallback<Habit> DIFF_CALLBACK = new DiffUtil.ItemCallback<Habit>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Habit oldItem, @NonNull Habit newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Habit oldItem, @NonNull Habit newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getFrequency(), newItem.getFrequency());
+        }
+    };
+
+    public HabitAdapter(OnDeleteClickListener deleteListener) {
+        super(DIFF_CALLBACK);
         this.deleteListener = deleteListener;
     }
 
+    // Diffing runs on a background thread via AsyncListDiffer
     public void updateList(List<Habit> newHabits) {
-        this.habits = newHabits;
-        notifyDataSetChanged();
+        submitList(new ArrayList<>(newHabits));
     }
 
     @NonNull
@@ -38,16 +54,11 @@ public class HabitAdapter extends RecyclerView.Adapter<HabitAdapter.HabitViewHol
 
     @Override
     public void onBindViewHolder(@NonNull HabitViewHolder holder, int position) {
-        Habit habit = habits.get(position);
+        Habit habit = getItem(position);
         holder.tvHabitName.setText(habit.getTitle());
         holder.btnDelete.setOnClickListener(v -> deleteListener.onDeleteClick(habit));
     }
 
-    @Override
-    public int getItemCount() {
-        return habits != null ? habits.size() : 0;
-    }
-
     static class HabitViewHolder extends RecyclerView.ViewHolder {
         TextView tvHabitName;
         ImageButton btnDelete;
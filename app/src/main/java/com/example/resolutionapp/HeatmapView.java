@@ -0,0 +1,255 @@
+package com.example.resolutionapp;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+public class HeatmapView extends View {
+
+    // Cell states, also used as indices into the palette below
+    public static final int STATE_FUTURE = 0;
+    public static final int STATE_UNSCHEDULED = 1;
+    public static final int STATE_NONE = 2;
+    public static final int STATE_SOME = 3;
+    public static final int STATE_HALF = 4;
+    public static final int STATE_ALL = 5;
+
+    private static final int[] CELL_COLORS = {
+            0xFF2C2C2C, // Dark Grey (Future)
+            0xFF424242, // Grey (Nothing scheduled)
+            0xFFF44336, // Red (0%)
+            0xFF9E9E9E, // Grey (> 0% but < 50%)
+            0xFFFFC107, // Yellow (>= 50%)
+            0xFF4CAF50 // Green (100%)
+    };
+    private static final int[] TEXT_COLORS = {
+            Color.GRAY, Color.WHITE, Color.WHITE, Color.BLACK, Color.BLACK, Color.WHITE
+    };
+    private static final int TODAY_BORDER_COLOR = 0xFFFFA500; // Orange border for today
+
+    private static final String[] HEADERS = { "S", "M", "T", "W", "T", "F", "S" };
+    private static final String[] DAY_LABELS = new String[32];
+
+    static {
+        for (int i = 1; i < DAY_LABELS.length; i++) {
+            DAY_LABELS[i] = String.valueOf(i);
+        }
+    }
+
+    public interface OnDayClickListener {
+        void onDayClick(int dayOfMonth);
+    }
+
+    private final Paint cellPaint = new Paint();
+    private final Paint todayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint borderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint headerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF cellRect = new RectF();
+
+    // Indexed by day of month (1-based), slot 0 unused
+    private final int[] dayStates = new int[32];
+    private int daysInMonth;
+    private int firstDayOffset; // Columns before day 1 (0 = Sunday)
+    private int today; // Day of month of today, 0 if not in this month
+
+    private float cellSize;
+    private float margin;
+    private float headerHeight;
+    private float cornerRadius;
+    private float borderWidth;
+    private float headerBaseline;
+    private float textBaseline;
+
+    private OnDayClickListener listener;
+    private int pressedDay;
+
+    public HeatmapView(Context context) {
+        super(context);
+        init();
+    }
+
+    public HeatmapView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        float density = getResources().getDisplayMetrics().density;
+        cellSize = (int) (density * 40);
+        margin = (int) (density * 2);
+        headerHeight = cellSize / 2;
+        cornerRadius = 8;
+        borderWidth = 4;
+
+        cellPaint.setStyle(Paint.Style.FILL);
+        todayPaint.setStyle(Paint.Style.FILL);
+        borderPaint.setStyle(Paint.Style.STROKE);
+        borderPaint.setStrokeWidth(borderWidth);
+        borderPaint.setColor(TODAY_BORDER_COLOR);
+
+        headerPaint.setColor(Color.WHITE);
+        headerPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        headerPaint.setTextAlign(Paint.Align.CENTER);
+        headerPaint.setTextSize(sp(14));
+
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTextSize(sp(12));
+
+        // Offsets that vertically center text on a cell's midline
+        headerBaseline = -(headerPaint.descent() + headerPaint.ascent()) / 2;
+        textBaseline = -(textPaint.descent() + textPaint.ascent()) / 2;
+    }
+
+    private float sp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, value, getResources().getDisplayMetrics());
+    }
+
+    /** Maps a day's completed/scheduled counts to a non-future cell state. */
+    public static int stateFor(int count, int totalExpected) {
+        if (totalExpected <= 0)
+            return STATE_UNSCHEDULED; // Nothing scheduled
+        if (count >= totalExpected)
+            return STATE_ALL; // 100% - All completed
+        if ((double) count / totalExpected >= 0.5)
+            return STATE_HALF; // 50% or more - Half or more completed
+        if (count > 0)
+            return STATE_SOME; // > 0% but < 50% - Need improvement
+        return STATE_NONE; // 0% - None completed
+    }
+
+    public void setOnDayClickListener(OnDayClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Resets the grid to a new month. All days start as {@link #STATE_FUTURE}
+     * until {@link #setDayState} is called.
+     */
+    public void setMonth(int firstDayOffset, int daysInMonth, int today) {
+        int oldRows = getRowCount();
+        this.firstDayOffset = firstDayOffset;
+        this.daysInMonth = Math.min(daysInMonth, DAY_LABELS.length - 1);
+        this.today = today;
+        for (int i = 0; i < dayStates.length; i++) {
+            dayStates[i] = STATE_FUTURE;
+        }
+        if (getRowCount() != oldRows) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    /** Updates a single day, redrawing only its cell when the state actually changed. */
+    public void setDayState(int dayOfMonth, int state) {
+        if (dayOfMonth < 1 || dayOfMonth > daysInMonth || dayStates[dayOfMonth] == state)
+            return;
+        dayStates[dayOfMonth] = state;
+        getCellRect(dayOfMonth, cellRect);
+        invalidate((int) Math.floor(cellRect.left), (int) Math.floor(cellRect.top),
+                (int) Math.ceil(cellRect.right), (int) Math.ceil(cellRect.bottom));
+    }
+
+    private int getRowCount() {
+        return (firstDayOffset + daysInMonth + 6) / 7;
+    }
+
+    private float getPitch() {
+        return cellSize + 2 * margin;
+    }
+
+    private void getCellRect(int dayOfMonth, RectF out) {
+        int index = firstDayOffset + dayOfMonth - 1;
+        float left = getPaddingLeft() + (index % 7) * getPitch() + margin;
+        float top = getPaddingTop() + headerHeight + 2 * margin + (index / 7) * getPitch() + margin;
+        out.set(left, top, left + cellSize, top + cellSize);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = (int) (7 * getPitch()) + getPaddingLeft() + getPaddingRight();
+        int height = (int) (headerHeight + 2 * margin + getRowCount() * getPitch())
+                + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        // 1. Header Row
+        float headerCenterY = getPaddingTop() + margin + headerHeight / 2;
+        for (int i = 0; i < HEADERS.length; i++) {
+            float centerX = getPaddingLeft() + i * getPitch() + margin + cellSize / 2;
+            canvas.drawText(HEADERS[i], centerX, headerCenterY + headerBaseline, headerPaint);
+        }
+
+        // 2. Days
+        for (int day = 1; day <= daysInMonth; day++) {
+            int state = dayStates[day];
+            getCellRect(day, cellRect);
+
+            if (day == today) {
+                todayPaint.setColor(CELL_COLORS[state]);
+                canvas.drawRoundRect(cellRect, cornerRadius, cornerRadius, todayPaint);
+                float inset = borderWidth / 2;
+                cellRect.inset(inset, inset);
+                canvas.drawRoundRect(cellRect, cornerRadius, cornerRadius, borderPaint);
+                cellRect.inset(-inset, -inset);
+            } else {
+                cellPaint.setColor(CELL_COLORS[state]);
+                canvas.drawRect(cellRect, cellPaint);
+            }
+
+            textPaint.setColor(TEXT_COLORS[state]);
+            canvas.drawText(DAY_LABELS[day], cellRect.centerX(), cellRect.centerY() + textBaseline, textPaint);
+        }
+    }
+
+    private int dayAt(float x, float y) {
+        float gridTop = getPaddingTop() + headerHeight + 2 * margin;
+        if (y < gridTop || x < getPaddingLeft())
+            return 0;
+        int col = (int) ((x - getPaddingLeft()) / getPitch());
+        int row = (int) ((y - gridTop) / getPitch());
+        if (col > 6)
+            return 0;
+        int day = row * 7 + col - firstDayOffset + 1;
+        return (day >= 1 && day <= daysInMonth) ? day : 0;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                pressedDay = dayAt(event.getX(), event.getY());
+                return pressedDay != 0;
+            case MotionEvent.ACTION_UP:
+                int day = dayAt(event.getX(), event.getY());
+                if (day != 0 && day == pressedDay) {
+                    performClick();
+                    if (listener != null)
+                        listener.onDayClick(day);
+                }
+                pressedDay = 0;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                pressedDay = 0;
+                return true;
+            default:
+                return pressedDay != 0;
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+}
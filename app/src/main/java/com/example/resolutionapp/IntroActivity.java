@@ -8,6 +8,7 @@ import android.widget.Button;
 import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.viewpager2.widget.ViewPager2;
+import com.example.resolutionapp.util.SlideImageLoader;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
 import java.util.ArrayList;
@@ -19,6 +20,8 @@ public class IntroActivity extends AppCompatActivity {
     private IntroAdapter introAdapter;
     private Button btnNext;
     private TextView btnSkip;
+    private SlideImageLoader imageLoader;
+    private int imageSize;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -57,7 +60,9 @@ public class IntroActivity extends AppCompatActivity {
                 R.drawable.intro_buttons,
                 "App Overview",
                 "Use '+' to manage habits, Calendar for history, Chart for stats, and Gear for settings."));
-        introAdapter = new IntroAdapter(slides);
+        imageLoader = SlideImageLoader.getInstance(this);
+        imageSize = getResources().getDimensionPixelSize(R.dimen.intro_image_size);
+        introAdapter = new IntroAdapter(slides, imageLoader, imageSize);
         viewPager2.setAdapter(introAdapter);
 
         // Link TabLayout with ViewPager2
@@ -70,6 +75,10 @@ public class IntroActivity extends AppCompatActivity {
             @Override
             public void onPageSelected(int position) {
                 super.onPageSelected(position);
+                // Decode the next slide before the user swipes to it
+                if (position + 1 < slides.size()) {
+                    imageLoader.prefetch(slides.get(position + 1).getImage(), imageSize, imageSize);
+                }
                 if (position == slides.size() - 1) {
                     btnNext.setText("Get Started");
                 } else {
@@ -93,6 +102,14 @@ public class IntroActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Slides are not shown again this session, free the cached bitmaps
+        if (imageLoader != null)
+            imageLoader.clear();
+    }
+
     private void markIntroSeen() {
         SharedPreferences.Editor editor = getSharedPreferences("PREFS", MODE_PRIVATE).edit();
         editor.putBoolean("INTRO_SEEN", true);
@@ -7,14 +7,19 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
+import com.example.resolutionapp.util.SlideImageLoader;
 import java.util.List;
 
 public class IntroAdapter extends RecyclerView.Adapter<IntroAdapter.IntroViewHolder> {
 
     private List<IntroSlide> slides;
+    private final SlideImageLoader imageLoader;
+    private final int imageSize;
 
-    public IntroAdapter(List<IntroSlide> slides) {
+    public IntroAdapter(List<IntroSlide> slides, SlideImageLoader imageLoader, int imageSize) {
         this.slides = slides;
+        this.imageLoader = imageLoader;
+        this.imageSize = imageSize;
     }
 
     @NonNull
@@ -26,7 +31,7 @@ public class IntroAdapter extends RecyclerView.Adapter<IntroAdapter.IntroViewHol
 
     @Override
     public void onBindViewHolder(@NonNull IntroViewHolder holder, int position) {
-        holder.bind(slides.get(position));
+        holder.bind(slides.get(position), imageLoader, imageSize);
     }
 
     @Override
@@ -46,8 +51,8 @@ public class IntroAdapter extends RecyclerView.Adapter<IntroAdapter.IntroViewHol
             txtDescription = itemView.findViewById(R.id.txt_description);
         }
 
-        void bind(IntroSlide slide) {
-            imgSlide.setImageResource(slide.getImage());
+        void bind(IntroSlide slide, SlideImageLoader imageLoader, int imageSize) {
+            imageLoader.load(slide.getImage(), imageSize, imageSize, imgSlide);
             txtTitle.setText(slide.getTitle());
             txtDescription.setText(slide.getDescription());
         }
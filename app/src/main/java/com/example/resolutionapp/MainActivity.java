@@ -17,30 +17,41 @@ import java.util.Locale;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import com.example.resolutionapp.util.FrameMetricsTracker;
 import com.example.resolutionapp.util.NotificationHelper;
+import com.example.resolutionapp.util.StartupScheduler;
+import com.example.resolutionapp.worker.InsightWorker;
 import com.example.resolutionapp.worker.NotificationWorker;
+import com.example.resolutionapp.worker.ReminderScheduler;
 import android.widget.Button;
 
 public class MainActivity extends AppCompatActivity {
 
-    private Fragment settingsFragment;
-    private Fragment calendarFragment;
-    private Fragment statsFragment;
-    private Fragment activeFragment;
+    private static final String TAG_SETTINGS = "SETTINGS";
+    private static final String TAG_CALENDAR = "CALENDAR";
+    private static final String TAG_STATS = "STATS";
+    // Bump when the WorkManager requests below change, so they get re-enqueued
+    private static final int WORK_SCHEDULE_VERSION = 4;
+
+    // Read from the frame metrics thread
+    private volatile Fragment activeFragment;
+    private FrameMetricsTracker frameMetricsTracker;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupScheduler.logPhase("MainActivity.onCreate");
         setContentView(R.layout.activity_main);
 
-        // 1. Create Channel
-        NotificationHelper.createNotificationChannel(this);
-
-        // 2. Schedule Daily Work And Reminders
-        scheduleDailyNotification();
-        schedulePeriodicReminder();
+        // 1. Defer channel creation and work scheduling until after first draw
+        new StartupScheduler()
+                .add("Notification channel", () -> NotificationHelper.createNotificationChannel(this))
+                .add("Schedule work", this::scheduleWorkIfNeeded)
+                .add("Reminder chain", () -> ReminderScheduler.schedule(this))
+                .add("Report catch-up", () -> NotificationWorker.catchUpIfMissed(this))
+                .startAfterFirstDraw(getWindow().getDecorView());
 
-        // 3. Request Permissions
+        // 2. Request Permissions
         android.util.Pair<String[], Integer> perms = getRequiredPermissions();
         if (perms.first.length > 0) {
             ActivityCompat.requestPermissions(this, perms.first, perms.second);
@@ -62,15 +73,15 @@ public class MainActivity extends AppCompatActivity {
 
             if (itemId == R.id.nav_settings) {
                 fab.hide();
-                showFragment(settingsFragment);
+                showFragment(TAG_SETTINGS);
                 return true;
             } else if (itemId == R.id.nav_calendar) {
                 fab.show();
-                showFragment(calendarFragment);
+                showFragment(TAG_CALENDAR);
                 return true;
             } else if (itemId == R.id.nav_stats) {
                 fab.hide();
-                showFragment(statsFragment);
+                showFragment(TAG_STATS);
                 return true;
             }
             return false;
@@ -78,45 +89,34 @@ public class MainActivity extends AppCompatActivity {
 
         // Initialize fragments
         if (savedInstanceState == null) {
-            settingsFragment = new SettingsFragment();
-            calendarFragment = new CalendarFragment();
-            statsFragment = new StatsFragment();
-
-            // Add all, hide others, show default (Calendar)
+            // Only the default tab (Calendar) is created up front, the others on first
+            // selection
+            Fragment calendarFragment = new CalendarFragment();
             getSupportFragmentManager().beginTransaction()
-                    .add(R.id.fragment_container, settingsFragment, "SETTINGS").hide(settingsFragment)
-                    .add(R.id.fragment_container, calendarFragment, "CALENDAR").hide(calendarFragment)
-                    .add(R.id.fragment_container, statsFragment, "STATS").hide(statsFragment)
-                    .show(calendarFragment)
+                    .add(R.id.fragment_container, calendarFragment, TAG_CALENDAR)
                     .commit();
 
             activeFragment = calendarFragment;
             bottomNav.setSelectedItemId(R.id.nav_calendar);
         } else {
-            // Restore references properly
-            settingsFragment = getSupportFragmentManager().findFragmentByTag("SETTINGS");
-            calendarFragment = getSupportFragmentManager().findFragmentByTag("CALENDAR");
-            statsFragment = getSupportFragmentManager().findFragmentByTag("STATS");
-
-            // Handle potential nulls to prevent crashes
-            if (settingsFragment == null)
-                settingsFragment = new SettingsFragment();
-            if (calendarFragment == null)
-                calendarFragment = new CalendarFragment();
-            if (statsFragment == null)
-                statsFragment = new StatsFragment();
-
-            // Restore activeFragment based on hidden state
-            if (!settingsFragment.isHidden())
-                activeFragment = settingsFragment;
-            else if (!calendarFragment.isHidden())
-                activeFragment = calendarFragment;
-            else if (!statsFragment.isHidden())
-                activeFragment = statsFragment;
-            else
-                activeFragment = calendarFragment; // Fallback
+            // Restore the visible tab; tabs never opened before are still absent
+            for (String tag : new String[] { TAG_SETTINGS, TAG_CALENDAR, TAG_STATS }) {
+                Fragment fragment = getSupportFragmentManager().findFragmentByTag(tag);
+                if (fragment != null && !fragment.isHidden()) {
+                    activeFragment = fragment;
+                    break;
+                }
+            }
+            if (activeFragment == null) {
+                activeFragment = getSupportFragmentManager().findFragmentByTag(TAG_CALENDAR); // Fallback
+            }
         }
 
+        frameMetricsTracker = FrameMetricsTracker.attach(getWindow(), () -> {
+            Fragment fragment = activeFragment;
+            return fragment != null ? fragment.getClass().getSimpleName() : null;
+        });
+
         // Handle Back Press
         getOnBackPressedDispatcher().addCallback(this, new androidx.activity.OnBackPressedCallback(true) {
             @Override
@@ -126,14 +126,44 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    private void showFragment(Fragment fragment) {
-        if (fragment == activeFragment)
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        frameMetricsTracker.detach();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        StartupScheduler.logPhase("MainActivity.onResume");
+    }
+
+    private Fragment createFragment(String tag) {
+        switch (tag) {
+            case TAG_SETTINGS:
+                return new SettingsFragment();
+            case TAG_STATS:
+                return new StatsFragment();
+            default:
+                return new CalendarFragment();
+        }
+    }
+
+    private void showFragment(String tag) {
+        Fragment fragment = getSupportFragmentManager().findFragmentByTag(tag);
+        if (fragment != null && fragment == activeFragment)
             return;
 
-        getSupportFragmentManager().beginTransaction()
-                .hide(activeFragment)
-                .show(fragment)
-                .commit();
+        androidx.fragment.app.FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
+        if (activeFragment != null)
+            transaction.hide(activeFragment);
+        if (fragment == null) {
+            fragment = createFragment(tag);
+            transaction.add(R.id.fragment_container, fragment, tag);
+        } else {
+            transaction.show(fragment);
+        }
+        transaction.commit();
         activeFragment = fragment;
     }
 
@@ -146,6 +176,17 @@ public class MainActivity extends AppCompatActivity {
                 .show();
     }
 
+    private void scheduleWorkIfNeeded() {
+        // Periodic work survives restarts, so only enqueue when the requests change
+        android.content.SharedPreferences prefs = getSharedPreferences("PREFS", MODE_PRIVATE);
+        if (prefs.getInt("WORK_SCHEDULE_VERSION", 0) == WORK_SCHEDULE_VERSION)
+            return;
+
+        scheduleDailyNotification();
+        ReminderScheduler.cancelLegacy(this);
+        prefs.edit().putInt("WORK_SCHEDULE_VERSION", WORK_SCHEDULE_VERSION).apply();
+    }
+
     private void scheduleDailyNotification() {
         // Schedule for 23:59 (11:59 PM)
         Calendar currentDate = Calendar.getInstance();
@@ -163,6 +204,8 @@ public class MainActivity extends AppCompatActivity {
         PeriodicWorkRequest dailyWorkRequest = new PeriodicWorkRequest.Builder(NotificationWorker.class, 24,
                 TimeUnit.HOURS)
                 .setInitialDelay(timeDiff, TimeUnit.MILLISECONDS)
+                .setBackoffCriteria(androidx.work.BackoffPolicy.EXPONENTIAL,
+                        NotificationWorker.BACKOFF_DELAY_MINUTES, TimeUnit.MINUTES)
                 .addTag("daily_resolution_check")
                 .build();
 
@@ -170,19 +213,7 @@ public class MainActivity extends AppCompatActivity {
                 "daily_resolution_check",
                 ExistingPeriodicWorkPolicy.UPDATE,
                 dailyWorkRequest);
-    }
-
-    private void schedulePeriodicReminder() {
-        // Schedule every 3 hours
-        PeriodicWorkRequest reminderRequest = new PeriodicWorkRequest.Builder(
-                com.example.resolutionapp.worker.ReminderWorker.class, 3, TimeUnit.HOURS)
-                .addTag("periodic_reminder_check")
-                .build();
-
-        WorkManager.getInstance(this).enqueueUniquePeriodicWork(
-                "periodic_reminder_check",
-                ExistingPeriodicWorkPolicy.UPDATE,
-                reminderRequest);
+        InsightWorker.schedule(this, timeDiff);
     }
 
     private android.util.Pair<String[], Integer> getRequiredPermissions() {
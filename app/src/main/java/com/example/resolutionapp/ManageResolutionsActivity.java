@@ -7,8 +7,11 @@ import android.widget.EditText;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.resolutionapp.data.FirestoreHelper;
+import com.example.resolutionapp.data.HabitDigest;
 import com.example.resolutionapp.model.Habit;
+import com.example.resolutionapp.util.FrameMetricsTracker;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 public class ManageResolutionsActivity extends AppCompatActivity {
@@ -16,6 +19,9 @@ public class ManageResolutionsActivity extends AppCompatActivity {
     private FirestoreHelper firestoreHelper;
     private HabitAdapter adapter;
     private EditText etHabitTitle;
+    // Local source of truth, edited optimistically; a failed write rolls back only its own habit
+    private final List<Habit> habits = new ArrayList<>();
+    private FrameMetricsTracker frameMetricsTracker;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -27,17 +33,35 @@ public class ManageResolutionsActivity extends AppCompatActivity {
         Button btnAdd = findViewById(R.id.btnAddHabit);
         RecyclerView rvHabits = findViewById(R.id.rvHabits);
 
-        adapter = new HabitAdapter(new ArrayList<>(), this::deleteHabit);
+        adapter = new HabitAdapter(this::deleteHabit);
         rvHabits.setLayoutManager(new LinearLayoutManager(this));
         rvHabits.setAdapter(adapter);
 
         btnAdd.setOnClickListener(v -> addHabit());
+        frameMetricsTracker = FrameMetricsTracker.attach(getWindow(), () -> "ManageResolutionsActivity");
 
         loadHabits();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        frameMetricsTracker.detach();
+    }
+
     private void loadHabits() {
-        firestoreHelper.getHabits(habits -> adapter.updateList(habits));
+        firestoreHelper.getHabits(result -> {
+            // Firestore includes pending local writes in query results, so edits made
+            // before the load returned are already in it
+            habits.clear();
+            habits.addAll(result);
+            onHabitsChanged();
+        });
+    }
+
+    private void onHabitsChanged() {
+        adapter.updateList(habits);
+        HabitDigest.getInstance().onHabitsChanged(habits);
     }
 
     private void addHabit() {
@@ -55,22 +79,34 @@ public class ManageResolutionsActivity extends AppCompatActivity {
             habit.setFrequency(frequency);
         }
 
+        // Optimistic insert
+        habits.add(habit);
+        onHabitsChanged();
+        etHabitTitle.setText("");
+        cbSunday.setChecked(false);
+
         firestoreHelper.addHabit(habit, task -> {
-            if (task.isSuccessful()) {
-                etHabitTitle.setText("");
-                cbSunday.setChecked(false);
-                loadHabits();
-            } else {
+            if (!task.isSuccessful()) {
+                habits.remove(habit);
+                onHabitsChanged();
                 android.widget.Toast.makeText(this, "Failed to add habit", android.widget.Toast.LENGTH_SHORT).show();
             }
         });
     }
 
     private void deleteHabit(Habit habit) {
+        int index = habits.indexOf(habit);
+        if (index < 0)
+            return;
+
+        // Optimistic remove
+        habits.remove(index);
+        onHabitsChanged();
+
         firestoreHelper.deleteHabit(habit.getId(), task -> {
-            if (task.isSuccessful()) {
-                loadHabits();
-            } else {
+            if (!task.isSuccessful()) {
+                habits.add(Math.min(index, habits.size()), habit);
+                onHabitsChanged();
                 android.widget.Toast.makeText(this, "Failed to delete habit", android.widget.Toast.LENGTH_SHORT).show();
             }
         });
@@ -0,0 +1,110 @@
+package com.example.resolutionapp;
+
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.resolutionapp.data.MonthSummaryCache;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.model.MonthSummary;
+import java.util.Calendar;
+
+/** One page per month, from {@link #FIRST_YEAR} up to a year past the current month. */
+public class MonthPagerAdapter extends RecyclerView.Adapter<MonthPagerAdapter.MonthViewHolder> {
+
+    // Matches the fallback creation date FirestoreHelper gives habits without a timestamp
+    public static final int FIRST_YEAR = 2024;
+    private static final int MONTHS_AHEAD = 12;
+
+    private final MonthSummaryCache summaryCache;
+    private final OnDateClickListener dateClickListener;
+    private final int monthCount;
+
+    public interface OnDateClickListener {
+        void onDateClick(int year, int month, int dayOfMonth);
+    }
+
+    public MonthPagerAdapter(MonthSummaryCache summaryCache, OnDateClickListener dateClickListener) {
+        this.summaryCache = summaryCache;
+        this.dateClickListener = dateClickListener;
+        this.monthCount = getCurrentMonthPosition() + MONTHS_AHEAD + 1;
+    }
+
+    public static int getCurrentMonthPosition() {
+        DateKey today = DateKey.today();
+        return MonthSummaryCache.monthKey(today.getYear(), today.getMonth())
+                - MonthSummaryCache.monthKey(FIRST_YEAR, Calendar.JANUARY);
+    }
+
+    public static int getYear(int position) {
+        return FIRST_YEAR + position / 12;
+    }
+
+    public static int getMonth(int position) {
+        return position % 12;
+    }
+
+    @NonNull
+    @Override
+    public MonthViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        FrameLayout page = new FrameLayout(parent.getContext());
+        page.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        HeatmapView heatmapView = new HeatmapView(parent.getContext());
+        page.addView(heatmapView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.CENTER_HORIZONTAL));
+        return new MonthViewHolder(page, heatmapView);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MonthViewHolder holder, int position) {
+        int year = getYear(position);
+        int month = getMonth(position);
+        holder.monthKey = MonthSummaryCache.monthKey(year, month);
+
+        DateKey first = DateKey.of(year, month, 1);
+        DateKey today = DateKey.today();
+        boolean isCurrentMonth = today.getYear() == year && today.getMonth() == month;
+        holder.heatmapView.setMonth(first.getDayOfWeek() - 1,
+                first.lengthOfMonth(),
+                isCurrentMonth ? today.getDayOfMonth() : 0);
+        holder.heatmapView.setOnDayClickListener(day -> dateClickListener.onDateClick(year, month, day));
+
+        final int boundKey = holder.monthKey;
+        summaryCache.get(year, month, summary -> {
+            // The holder may have been rebound to another month while this was loading
+            if (holder.monthKey == boundKey)
+                applySummary(holder.heatmapView, summary);
+        });
+    }
+
+    private void applySummary(HeatmapView heatmapView, MonthSummary summary) {
+        DateKey today = DateKey.today();
+        int currentKey = MonthSummaryCache.monthKey(today.getYear(), today.getMonth());
+        int key = MonthSummaryCache.monthKey(summary.getYear(), summary.getMonth());
+        if (key > currentKey)
+            return; // Whole month is in the future
+
+        int lastDay = key == currentKey ? today.getDayOfMonth() : summary.getDaysInMonth();
+        for (int day = 1; day <= lastDay; day++) {
+            heatmapView.setDayState(day,
+                    HeatmapView.stateFor(summary.getCompletedCount(day), summary.getScheduledCount(day)));
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return monthCount;
+    }
+
+    static class MonthViewHolder extends RecyclerView.ViewHolder {
+        final HeatmapView heatmapView;
+        int monthKey;
+
+        MonthViewHolder(@NonNull FrameLayout itemView, HeatmapView heatmapView) {
+            super(itemView);
+            this.heatmapView = heatmapView;
+        }
+    }
+}
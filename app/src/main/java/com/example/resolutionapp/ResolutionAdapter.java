@@ -0,0 +1,116 @@
+package com.example.resolutionapp;
+
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.resolutionapp.model.Habit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+public class ResolutionAdapter extends ListAdapter<Habit, ResolutionAdapter.ResolutionViewHolder> {
+
+    private final Set<String> completedIds;
+    private final boolean isPast;
+    private final OnToggleListener toggleListener;
+    private final Map<String, Long> stableIds = new HashMap<>();
+
+    public interface OnToggleListener {
+        void onToggle(Habit habit, boolean isChecked);
+    }
+
+    private static final DiffUtil.ItemCallback<Habit> DIFF_CALLBACK = new DiffUtil.ItemCallback<Habit>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Habit oldItem, @NonNull Habit newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Habit oldItem, @NonNull Habit newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle());
+        }
+    };
+
+    public ResolutionAdapter(Set<String> completedIds, boolean isPast, OnToggleListener toggleListener) {
+        super(DIFF_CALLBACK);
+        this.completedIds = completedIds;
+        this.isPast = isPast;
+        this.toggleListener = toggleListener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String habitId = getItem(position).getId();
+        Long id = stableIds.get(habitId);
+        if (id == null) {
+            id = (long) stableIds.size();
+            stableIds.put(habitId, id);
+        }
+        return id;
+    }
+
+    @NonNull
+    @Override
+    public ResolutionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_resolution_card, parent, false);
+        return new ResolutionViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ResolutionViewHolder holder, int position) {
+        Habit habit = getItem(position);
+        holder.tvTitle.setText(habit.getTitle());
+        holder.cbResolution.setEnabled(!isPast);
+
+        if (isPast) {
+            holder.cbResolution.setAlpha(0.6f);
+            holder.tvTitle.setAlpha(0.6f);
+            holder.itemView.setOnClickListener(null);
+            holder.itemView.setClickable(false);
+        } else {
+            // Allow clicking the entire card to toggle checkbox
+            holder.itemView.setOnClickListener(v -> holder.cbResolution.performClick());
+        }
+
+        bindCompletion(holder, habit);
+    }
+
+    private void bindCompletion(ResolutionViewHolder holder, Habit habit) {
+        boolean isDone = completedIds.contains(habit.getId());
+
+        holder.cbResolution.setOnCheckedChangeListener(null);
+        holder.cbResolution.setChecked(isDone);
+
+        if (isPast) {
+            holder.cbResolution.setButtonDrawable(isDone ? holder.defaultButton : holder.missedButton);
+        } else {
+            holder.cbResolution.setOnCheckedChangeListener(
+                    (buttonView, isChecked) -> toggleListener.onToggle(habit, isChecked));
+        }
+    }
+
+    static class ResolutionViewHolder extends RecyclerView.ViewHolder {
+        CheckBox cbResolution;
+        TextView tvTitle;
+        Drawable defaultButton;
+        Drawable missedButton;
+
+        public ResolutionViewHolder(@NonNull View itemView) {
+            super(itemView);
+            cbResolution = itemView.findViewById(R.id.cbResolution);
+            tvTitle = itemView.findViewById(R.id.tvResolutionTitle);
+            defaultButton = cbResolution.getButtonDrawable();
+            missedButton = androidx.core.content.ContextCompat.getDrawable(itemView.getContext(),
+                    R.drawable.ic_close_red);
+        }
+    }
+}
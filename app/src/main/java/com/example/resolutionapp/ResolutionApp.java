@@ -0,0 +1,36 @@
+package com.example.resolutionapp;
+
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import androidx.core.content.ContextCompat;
+import com.example.resolutionapp.model.DateKey;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+public class ResolutionApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.USE_FIRESTORE_EMULATOR) {
+            // Benchmark builds run against the local Firebase emulators (10.0.2.2 is the host from an emulator)
+            FirebaseFirestore.getInstance().useEmulator("10.0.2.2", 8080);
+            FirebaseAuth.getInstance().useEmulator("10.0.2.2", 9099);
+            // The emulator starts empty, give the benchmark account something to show
+            com.example.resolutionapp.data.BenchmarkSeed.install();
+        }
+        // The cached "today" goes stale when the zone or wall clock changes
+        IntentFilter clockChanges = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
+        clockChanges.addAction(Intent.ACTION_TIME_CHANGED);
+        clockChanges.addAction(Intent.ACTION_DATE_CHANGED);
+        ContextCompat.registerReceiver(this, new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                DateKey.invalidateToday();
+            }
+        }, clockChanges, ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+}
@@ -11,15 +11,36 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import com.example.resolutionapp.util.FrameStatsStore;
+import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.android.material.textfield.TextInputEditText;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class SettingsFragment extends Fragment {
 
     private TextInputEditText etRecipientPhone;
+    private SwitchMaterial switchWeeklyDigest;
+    private TextInputEditText etRecipientEmails;
+    private TextInputEditText etSenderEmail;
+    private TextInputEditText etSenderPassword;
+    private TextInputEditText etSmtpHost;
+    private TextInputEditText etSmtpPort;
     private Button btnSave;
 
     public static final String PREFS_NAME = "ResolutionAppPrefs";
     public static final String KEY_RECIPIENT_PHONE = "pref_recipient_phone";
+    public static final String KEY_SMS_WEEKLY_DIGEST = "pref_sms_weekly_digest";
+    public static final String KEY_RECIPIENT_EMAILS = "pref_recipient_emails";
+    public static final String KEY_SENDER_EMAIL = "pref_sender_email";
+    public static final String KEY_SENDER_PASSWORD = "pref_sender_password";
+    public static final String KEY_SMTP_HOST = "pref_smtp_host";
+    public static final String KEY_SMTP_PORT = "pref_smtp_port";
+    private static final String DEFAULT_SMTP_HOST = "smtp.gmail.com";
+    private static final int DEFAULT_SMTP_PORT = 587;
+
+    // Disk work: the encrypted password store opens a Keystore key, and diagnostics read prefs and write files
+    private static final Executor ioExecutor = Executors.newSingleThreadExecutor();
 
     @Nullable
     @Override
@@ -33,12 +54,24 @@ public class SettingsFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         etRecipientPhone = view.findViewById(R.id.et_recipient_phone);
+        switchWeeklyDigest = view.findViewById(R.id.switch_weekly_digest);
+        etRecipientEmails = view.findViewById(R.id.et_recipient_emails);
+        etSenderEmail = view.findViewById(R.id.et_sender_email);
+        etSenderPassword = view.findViewById(R.id.et_sender_password);
+        etSmtpHost = view.findViewById(R.id.et_smtp_host);
+        etSmtpPort = view.findViewById(R.id.et_smtp_port);
         btnSave = view.findViewById(R.id.btn_save_settings);
 
         loadSettings();
 
         btnSave.setOnClickListener(v -> saveSettings());
 
+        // Hidden diagnostics page
+        view.findViewById(R.id.tv_settings_title).setOnLongClickListener(v -> {
+            showDiagnostics();
+            return true;
+        });
+
         view.findViewById(R.id.btn_show_tour).setOnClickListener(v -> {
             SharedPreferences introPrefs = requireActivity().getSharedPreferences("PREFS", Context.MODE_PRIVATE);
             introPrefs.edit().putBoolean("INTRO_SEEN", false).apply();
@@ -48,10 +81,86 @@ public class SettingsFragment extends Fragment {
         });
     }
 
+    private void showDiagnostics() {
+        Context context = requireContext().getApplicationContext();
+        // The outbox and cache summaries read prefs and list files, so they are gathered off the main thread
+        ioExecutor.execute(() -> {
+            String text = diagnosticsText(context);
+            runOnUiThreadIfAdded(() -> new androidx.appcompat.app.AlertDialog.Builder(requireContext())
+                    .setTitle("Diagnostics")
+                    .setMessage(text)
+                    .setPositiveButton("Export frames", (dialog, which) -> exportDiagnostics(context))
+                    .setNeutralButton("Reset", (dialog, which) -> resetDiagnostics(context))
+                    .setNegativeButton("Close", null)
+                    .show());
+        });
+    }
+
+    // Clears every counter shown; the SMS outbox and cached replies are real state, not stats, so they stay
+    private static void resetDiagnostics(Context context) {
+        FrameStatsStore.getInstance().clear();
+        com.example.resolutionapp.worker.ReminderStats.clear(context);
+        com.example.resolutionapp.data.GeminiResponseCache.getInstance(context).resetCounts();
+        com.example.resolutionapp.data.GeminiHttp.resetStats();
+    }
+
+    private static String diagnosticsText(Context context) {
+        StringBuilder text = new StringBuilder();
+        for (FrameStatsStore.ScreenStats stats : FrameStatsStore.getInstance().snapshot()) {
+            text.append(stats).append("\n\n");
+        }
+        if (text.length() == 0)
+            text.append("No frames recorded yet.\n\n");
+
+        String reminders = com.example.resolutionapp.worker.ReminderStats.summary(context);
+        if (!reminders.isEmpty())
+            text.append("Reminders\n").append(reminders);
+
+        String outbox = com.example.resolutionapp.util.SmsOutbox.summary(context);
+        if (!outbox.isEmpty())
+            text.append("\nSMS outbox\n").append(outbox);
+
+        text.append("\n").append(com.example.resolutionapp.data.GeminiResponseCache.getInstance(context))
+                .append("\n").append(com.example.resolutionapp.data.GeminiHttp.summary()).append("\n");
+        return text.toString().trim();
+    }
+
+    private void exportDiagnostics(Context context) {
+        ioExecutor.execute(() -> {
+            java.io.File dir = context.getExternalFilesDir(null);
+            if (dir == null)
+                dir = context.getFilesDir();
+            java.io.File file = new java.io.File(dir, "frame_metrics_" + System.currentTimeMillis() + ".txt");
+            String message;
+            try {
+                FrameStatsStore.getInstance().exportTo(file);
+                message = "Exported to " + file.getAbsolutePath();
+            } catch (java.io.IOException e) {
+                message = "Export failed: " + e.getMessage();
+            }
+            String result = message;
+            runOnUiThreadIfAdded(() -> Toast.makeText(getContext(), result, Toast.LENGTH_LONG).show());
+        });
+    }
+
     private void loadSettings() {
         SharedPreferences prefs = requireActivity().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         String phone = prefs.getString(KEY_RECIPIENT_PHONE, "");
         etRecipientPhone.setText(phone);
+        switchWeeklyDigest.setChecked(prefs.getBoolean(KEY_SMS_WEEKLY_DIGEST, false));
+        etRecipientEmails.setText(prefs.getString(KEY_RECIPIENT_EMAILS, ""));
+        etSenderEmail.setText(prefs.getString(KEY_SENDER_EMAIL, ""));
+        Context context = requireContext().getApplicationContext();
+        ioExecutor.execute(() -> {
+            String password = com.example.resolutionapp.util.SmtpConfig.getPassword(context);
+            runOnUiThreadIfAdded(() -> {
+                // Keep anything typed while the password was loading
+                if (etSenderPassword.getText() == null || etSenderPassword.getText().length() == 0)
+                    etSenderPassword.setText(password);
+            });
+        });
+        etSmtpHost.setText(prefs.getString(KEY_SMTP_HOST, DEFAULT_SMTP_HOST));
+        etSmtpPort.setText(String.valueOf(prefs.getInt(KEY_SMTP_PORT, DEFAULT_SMTP_PORT)));
     }
 
     private void saveSettings() {
@@ -60,37 +169,95 @@ public class SettingsFragment extends Fragment {
         // Remove spaces/hyphens
         recipientPhone = recipientPhone.replace(" ", "").replace("-", "");
 
-        if (recipientPhone.isEmpty()) {
-            etRecipientPhone.setError("Phone number cannot be empty");
-            return;
-        }
+        String recipientEmails = etRecipientEmails.getText().toString().trim();
 
-        // Check for minimum 10 digits
-        String digitsOnly = recipientPhone.replaceAll("[^0-9]", "");
-        if (digitsOnly.length() < 10) {
-            etRecipientPhone.setError("Phone number cannot be less than 10 digits");
-            return;
-        }
+        // Phone can be left empty when the report goes out by email only
+        if (!recipientPhone.isEmpty() || recipientEmails.isEmpty()) {
+            if (recipientPhone.isEmpty()) {
+                etRecipientPhone.setError("Phone number cannot be empty");
+                return;
+            }
+
+            // Check for minimum 10 digits
+            String digitsOnly = recipientPhone.replaceAll("[^0-9]", "");
+            if (digitsOnly.length() < 10) {
+                etRecipientPhone.setError("Phone number cannot be less than 10 digits");
+                return;
+            }
 
-        // If user entered 10 digits, assume India and add +91
-        if (recipientPhone.matches("\\d{10}")) {
-            recipientPhone = "+91" + recipientPhone;
+            // If user entered 10 digits, assume India and add +91
+            if (recipientPhone.matches("\\d{10}")) {
+                recipientPhone = "+91" + recipientPhone;
+            }
+
+            // Basic validation: Must start with + and have at least 10 digits
+            if (!recipientPhone.startsWith("+")) {
+                etRecipientPhone.setError("Invalid format. Enter 10 digit number.");
+                return;
+            }
         }
 
-        // Basic validation: Must start with + and have at least 10 digits
-        if (!recipientPhone.startsWith("+")) {
-            etRecipientPhone.setError("Invalid format. Enter 10 digit number.");
-            return;
+        // Email is optional, but when recipients are given the sender must be complete
+        String senderEmail = etSenderEmail.getText().toString().trim();
+        String senderPassword = etSenderPassword.getText().toString();
+        String smtpHost = etSmtpHost.getText().toString().trim();
+        int smtpPort = DEFAULT_SMTP_PORT;
+        if (!recipientEmails.isEmpty()) {
+            for (String email : recipientEmails.split(",")) {
+                if (!android.util.Patterns.EMAIL_ADDRESS.matcher(email.trim()).matches()) {
+                    etRecipientEmails.setError("Invalid email: " + email.trim());
+                    return;
+                }
+            }
+            if (!android.util.Patterns.EMAIL_ADDRESS.matcher(senderEmail).matches()) {
+                etSenderEmail.setError("Enter the sending account's email");
+                return;
+            }
+            if (senderPassword.isEmpty()) {
+                etSenderPassword.setError("App password cannot be empty");
+                return;
+            }
+            if (smtpHost.isEmpty()) {
+                etSmtpHost.setError("SMTP server cannot be empty");
+                return;
+            }
+            try {
+                smtpPort = Integer.parseInt(etSmtpPort.getText().toString().trim());
+            } catch (NumberFormatException e) {
+                etSmtpPort.setError("Invalid port");
+                return;
+            }
         }
 
         SharedPreferences prefs = requireActivity().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         SharedPreferences.Editor editor = prefs.edit();
         editor.putString(KEY_RECIPIENT_PHONE, recipientPhone);
+        editor.putBoolean(KEY_SMS_WEEKLY_DIGEST, switchWeeklyDigest.isChecked());
+        editor.putString(KEY_RECIPIENT_EMAILS, recipientEmails);
+        editor.putString(KEY_SENDER_EMAIL, senderEmail);
+        editor.putString(KEY_SMTP_HOST, smtpHost.isEmpty() ? DEFAULT_SMTP_HOST : smtpHost);
+        editor.putInt(KEY_SMTP_PORT, smtpPort);
         editor.apply();
 
         etRecipientPhone.setError(null);
         etRecipientPhone.setText(recipientPhone); // Update UI to show prefix
 
-        Toast.makeText(getContext(), R.string.settings_saved, Toast.LENGTH_SHORT).show();
+        Context context = requireContext().getApplicationContext();
+        ioExecutor.execute(() -> {
+            boolean saved = com.example.resolutionapp.util.SmtpConfig.savePassword(context, senderPassword);
+            runOnUiThreadIfAdded(() -> Toast.makeText(getContext(),
+                    saved ? getString(R.string.settings_saved) : "Could not store the app password securely",
+                    Toast.LENGTH_SHORT).show());
+        });
+    }
+
+    private void runOnUiThreadIfAdded(Runnable action) {
+        android.app.Activity activity = getActivity();
+        if (activity == null)
+            return;
+        activity.runOnUiThread(() -> {
+            if (isAdded())
+                action.run();
+        });
     }
 }
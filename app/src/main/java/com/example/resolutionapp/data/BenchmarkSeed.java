@@ -0,0 +1,96 @@
+package com.example.resolutionapp.data;
+
+import android.util.Log;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.model.Habit;
+import com.example.resolutionapp.model.ResolutionDay;
+import com.example.resolutionapp.worker.DailyProgress;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixture data for the benchmark and baseline profile builds, which talk to
+ * an empty local Firebase emulator. The first time a user signs in without
+ * any habits, a fixed set of habits and a year of history is written for
+ * them, so every journey measures a populated account. Never used against
+ * the real backend.
+ */
+public final class BenchmarkSeed {
+
+    private static final String TAG = "BenchmarkSeed";
+    private static final int HISTORY_DAYS = 365;
+    // Same history on every run, so results stay comparable
+    private static final long RANDOM_SEED = 42;
+    private static final float COMPLETION_RATE = 0.7f;
+
+    private static final String[] TITLES = {
+            "Morning run", "Read 20 pages", "Meditate", "Drink 2L of water", "Journal", "No sugar" };
+
+    private BenchmarkSeed() {
+    }
+
+    /** Seeds whichever user signs in next, if their account is empty. Call once at startup. */
+    public static void install() {
+        // Waits for the app's own anonymous sign-in rather than racing it with a second one
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> {
+            FirebaseUser user = auth.getCurrentUser();
+            if (user != null)
+                seedIfEmpty(user.getUid());
+        });
+    }
+
+    private static void seedIfEmpty(String uid) {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        DocumentReference userDoc = db.collection("users").document(uid);
+        userDoc.collection("habits").limit(1).get(Source.SERVER).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.w(TAG, "Could not check for existing habits, is the emulator running?", task.getException());
+                return;
+            }
+            if (!task.getResult().isEmpty())
+                return;
+
+            DateKey today = DateKey.today();
+            DateKey first = today.plusDays(-HISTORY_DAYS);
+            WriteBatch batch = db.batch();
+
+            List<Habit> habits = new ArrayList<>();
+            for (int i = 0; i < TITLES.length; i++) {
+                Habit habit = new Habit("bench-habit-" + i, TITLES[i], "", first.toCalendar().getTimeInMillis());
+                if (i == TITLES.length - 1) {
+                    habit.setFrequency(Collections.singletonList("SUNDAY"));
+                }
+                habits.add(habit);
+                batch.set(userDoc.collection("habits").document(habit.getId()), habit);
+            }
+
+            // Today is left open, so the checklist still has something to tick
+            Random random = new Random(RANDOM_SEED);
+            for (DateKey day = first; day.isBefore(today); day = day.plusDays(1)) {
+                List<String> completed = new ArrayList<>();
+                for (Habit habit : habits) {
+                    // Every habit was created on the first day, so only the schedule matters
+                    if (DailyProgress.isScheduledOn(habit, day) && random.nextFloat() < COMPLETION_RATE)
+                        completed.add(habit.getId());
+                }
+                batch.set(userDoc.collection("resolutions").document(day.toString()),
+                        new ResolutionDay(day.toString(), completed));
+            }
+
+            batch.commit().addOnCompleteListener(commit -> {
+                if (commit.isSuccessful())
+                    Log.i(TAG, "Seeded " + habits.size() + " habits and " + HISTORY_DAYS + " days for " + uid);
+                else
+                    Log.e(TAG, "Seeding failed", commit.getException());
+            });
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.resolutionapp.data;
+
+import com.example.resolutionapp.model.ChatMessage;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the conversation sent to Gemini under a token budget. The most recent
+ * turns are sent as they are; older ones are folded into a short rolling
+ * summary that goes out with the system context. The summary is extended
+ * incrementally as turns leave the window, so a long chat costs the same to
+ * send as a short one. One instance per conversation.
+ */
+public class ChatContextManager {
+
+    public static final int DEFAULT_WINDOW_TOKENS = 2000;
+    public static final int DEFAULT_SUMMARY_TOKENS = 400;
+    // Characters kept from each summarized turn
+    private static final int SUMMARY_LINE_CHARS = 160;
+    // Never trim below the last exchange, however long it is
+    private static final int MIN_RECENT_TURNS = 2;
+
+    private final int windowTokens;
+    private final int summaryTokens;
+
+    // Rolling summary of history[0, summarized), one line per turn, oldest first
+    private final Deque<String> summaryLines = new ArrayDeque<>();
+    private int summaryLineTokens;
+    private int summarized;
+    private ChatMessage firstMessage; // Detects a different or cleared conversation
+    private String summary;
+
+    /** What to send for one request. */
+    public static final class Window {
+        /** Summary of the turns left out, or null if the whole history fits. */
+        public final String summary;
+        /** The most recent turns, oldest first, starting with a user turn. A view of the history. */
+        public final List<ChatMessage> recent;
+        /** Where {@link #recent} lies in the history, for writers that index it directly. */
+        public final int start;
+        public final int end;
+
+        Window(String summary, List<ChatMessage> history, int start, int end) {
+            this.summary = summary;
+            this.recent = Collections.unmodifiableList(history.subList(start, end));
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    public ChatContextManager() {
+        this(DEFAULT_WINDOW_TOKENS, DEFAULT_SUMMARY_TOKENS);
+    }
+
+    public ChatContextManager(int windowTokens, int summaryTokens) {
+        this.windowTokens = windowTokens;
+        this.summaryTokens = summaryTokens;
+    }
+
+    /**
+     * Splits the history into a summary and a window of recent turns that
+     * together with the new message fit the budget.
+     */
+    public synchronized Window build(List<ChatMessage> history, String userMessage) {
+        if (history.isEmpty() || history.get(0) != firstMessage || history.size() < summarized) {
+            reset(history.isEmpty() ? null : history.get(0));
+        }
+
+        // Walk back from the newest turn until the budget runs out
+        int budget = windowTokens - ChatMessage.estimateTokens(userMessage);
+        int start = history.size();
+        while (start > summarized) {
+            int cost = history.get(start - 1).getTokenEstimate();
+            if (history.size() - start >= MIN_RECENT_TURNS && cost > budget)
+                break;
+            budget -= cost;
+            start--;
+        }
+        // Gemini expects the window to open with a user turn
+        while (start < history.size() && !ChatMessage.ROLE_USER.equals(history.get(start).getRole())) {
+            start++;
+        }
+
+        for (int i = summarized; i < start; i++) {
+            addSummaryLine(history.get(i));
+        }
+        summarized = Math.max(summarized, start);
+
+        return new Window(summary, history, start, history.size());
+    }
+
+    public synchronized void reset() {
+        reset(null);
+    }
+
+    private void reset(ChatMessage first) {
+        summaryLines.clear();
+        summaryLineTokens = 0;
+        summarized = 0;
+        summary = null;
+        firstMessage = first;
+    }
+
+    // Extractive, so it is free to compute and stable across requests (which keeps them cacheable)
+    private void addSummaryLine(ChatMessage msg) {
+        String content = msg.getContent() != null ? msg.getContent().trim().replaceAll("\\s+", " ") : "";
+        if (content.length() > SUMMARY_LINE_CHARS) {
+            int cut = content.lastIndexOf(' ', SUMMARY_LINE_CHARS);
+            content = content.substring(0, cut > 0 ? cut : SUMMARY_LINE_CHARS) + "…";
+        }
+        String line = (ChatMessage.ROLE_USER.equals(msg.getRole()) ? "User: " : "Coach: ") + content;
+        summaryLines.addLast(line);
+        summaryLineTokens += ChatMessage.estimateTokens(line);
+
+        // Oldest turns fall out of the summary too once it is over budget
+        while (summaryLineTokens > summaryTokens && summaryLines.size() > 1) {
+            summaryLineTokens -= ChatMessage.estimateTokens(summaryLines.removeFirst());
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (String l : summaryLines) {
+            text.append(l).append("\n");
+        }
+        summary = text.toString().trim();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.resolutionapp.data;
+
+import android.os.SystemClock;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.model.Habit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads everything the daily checklist needs for one date, with habits and
+ * resolutions fetched in parallel. A screen that is about to open a date calls
+ * {@link #prefetch} so the activity can pick up a warm or in-flight result.
+ * Only the last few prefetches are kept, and a result leaves the cache once
+ * handed off. Main thread only.
+ */
+public class DayDataRepository {
+
+    // Prefetched data older than this is refetched rather than handed off
+    private static final long MAX_AGE_MS = 15_000;
+    // Enough for a few taps ahead of the screen opening
+    private static final int MAX_PREFETCHED = 4;
+
+    private static DayDataRepository instance;
+
+    public interface DayDataCallback {
+        void onDayData(List<Habit> habits, List<String> completedHabitIds);
+    }
+
+    private static class Request {
+        final DateKey date;
+        final long startedAt = SystemClock.elapsedRealtime();
+        List<Habit> habits;
+        List<String> completedHabitIds;
+        boolean done;
+        final List<DayDataCallback> waiters = new ArrayList<>();
+
+        Request(DateKey date) {
+            this.date = date;
+        }
+    }
+
+    private final FirestoreHelper firestoreHelper;
+    // Least recently used first, so the oldest prefetch is dropped past MAX_PREFETCHED
+    private final Map<DateKey, Request> prefetched = new LinkedHashMap<DateKey, Request>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DateKey, Request> eldest) {
+            return size() > MAX_PREFETCHED;
+        }
+    };
+    // Callbacks still waiting on a load, so a destroyed screen can drop its own
+    private final Map<DayDataCallback, Request> waiting = new HashMap<>();
+
+    private DayDataRepository() {
+        firestoreHelper = new FirestoreHelper();
+    }
+
+    public static synchronized DayDataRepository getInstance() {
+        if (instance == null) {
+            instance = new DayDataRepository();
+        }
+        return instance;
+    }
+
+    public void prefetch(DateKey date) {
+        Request existing = prefetched.get(date);
+        if (existing != null && !isStale(existing))
+            return;
+        prefetched.put(date, start(date));
+    }
+
+    /**
+     * Hands off a prefetched result for the date, or starts a fresh load. The
+     * callback runs synchronously when the data is already warm.
+     */
+    public void load(DateKey date, DayDataCallback callback) {
+        Request request = prefetched.remove(date);
+        if (request == null || isStale(request)) {
+            request = start(date);
+        }
+        if (request.done) {
+            callback.onDayData(request.habits, request.completedHabitIds);
+        } else {
+            request.waiters.add(callback);
+            waiting.put(callback, request);
+        }
+    }
+
+    /**
+     * Drops a callback passed to {@link #load} that has not run yet, e.g. when
+     * its screen is destroyed. The load itself goes back to the prefetched
+     * results, so a recreated screen can still pick it up.
+     */
+    public void cancel(DayDataCallback callback) {
+        Request request = waiting.remove(callback);
+        if (request == null)
+            return;
+        request.waiters.remove(callback);
+        if (request.waiters.isEmpty() && !prefetched.containsKey(request.date))
+            prefetched.put(request.date, request);
+    }
+
+    private boolean isStale(Request request) {
+        return SystemClock.elapsedRealtime() - request.startedAt > MAX_AGE_MS;
+    }
+
+    private Request start(DateKey date) {
+        Request request = new Request(date);
+
+        Runnable checkDone = () -> {
+            if (request.habits == null || request.completedHabitIds == null)
+                return;
+            request.done = true;
+            List<DayDataCallback> callbacks = new ArrayList<>(request.waiters);
+            request.waiters.clear();
+            for (DayDataCallback callback : callbacks) {
+                waiting.remove(callback);
+                callback.onDayData(request.habits, request.completedHabitIds);
+            }
+        };
+
+        firestoreHelper.getHabits(habits -> {
+            request.habits = habits;
+            checkDone.run();
+        });
+        firestoreHelper.getResolutionsForDate(date, ids -> {
+            request.completedHabitIds = ids;
+            checkDone.run();
+        });
+        return request;
+    }
+}
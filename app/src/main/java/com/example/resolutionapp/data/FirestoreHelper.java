@@ -2,6 +2,7 @@ package com.example.resolutionapp.data;
 
 import android.util.Log;
 import androidx.annotation.NonNull;
+import com.example.resolutionapp.model.DateKey;
 import com.example.resolutionapp.model.Habit;
 import com.example.resolutionapp.model.ResolutionDay;
 import com.google.android.gms.tasks.OnCompleteListener;
@@ -12,7 +13,9 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,7 +37,15 @@ public class FirestoreHelper {
     public void addHabit(Habit habit, OnCompleteListener<Void> onCompleteListener) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null) {
-            auth.signInAnonymously().addOnSuccessListener(authResult -> addHabit(habit, onCompleteListener));
+            auth.signInAnonymously().addOnCompleteListener(task -> {
+                if (task.isSuccessful()) {
+                    addHabit(habit, onCompleteListener);
+                } else {
+                    // Callers count pending writes, so a failed sign-in must still complete the write
+                    onCompleteListener.onComplete(Tasks.forException(task.getException() != null
+                            ? task.getException() : new IllegalStateException("Sign-in failed")));
+                }
+            });
             return;
         }
 
@@ -46,8 +57,10 @@ public class FirestoreHelper {
 
     public void deleteHabit(String habitId, OnCompleteListener<Void> onCompleteListener) {
         FirebaseUser user = auth.getCurrentUser();
-        if (user == null)
+        if (user == null) {
+            onCompleteListener.onComplete(Tasks.forException(new IllegalStateException("No user logged in")));
             return;
+        }
 
         db.collection("users").document(user.getUid())
                 .collection("habits").document(habitId)
@@ -68,48 +81,59 @@ public class FirestoreHelper {
                 .get()
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
-                        List<Habit> list = new ArrayList<>();
-                        for (DocumentSnapshot doc : task.getResult()) {
-                            Habit h = doc.toObject(Habit.class);
-                            if (h != null) {
-                                Long ts = doc.getLong("createdTimestamp");
-                                if (ts != null && ts > 0) {
-                                    h.createdTimestamp = ts;
-                                } else {
-                                    // For old habits without timestamp, use a default historical date
-                                    // This ensures they appear on all dates (backward compatibility)
-                                    java.util.Calendar defaultDate = java.util.Calendar.getInstance();
-                                    defaultDate.set(2024, java.util.Calendar.JANUARY, 1, 0, 0, 0);
-                                    defaultDate.set(java.util.Calendar.MILLISECOND, 0);
-                                    h.createdTimestamp = defaultDate.getTimeInMillis();
-                                }
-                                list.add(h);
-                            }
-                        }
-                        callback.onCallback(list);
+                        callback.onCallback(toHabits(task.getResult()));
                     } else {
                         callback.onCallback(new ArrayList<>());
                     }
                 });
     }
 
+    /** Habits from a habits query, with a default creation date for ones saved before it was recorded. */
+    public static List<Habit> toHabits(QuerySnapshot snapshot) {
+        List<Habit> list = new ArrayList<>();
+        for (DocumentSnapshot doc : snapshot) {
+            Habit h = doc.toObject(Habit.class);
+            if (h != null) {
+                Long ts = doc.getLong("createdTimestamp");
+                if (ts != null && ts > 0) {
+                    h.createdTimestamp = ts;
+                } else {
+                    // For old habits without timestamp, use a default historical date
+                    // This ensures they appear on all dates (backward compatibility)
+                    java.util.Calendar defaultDate = java.util.Calendar.getInstance();
+                    defaultDate.set(2024, java.util.Calendar.JANUARY, 1, 0, 0, 0);
+                    defaultDate.set(java.util.Calendar.MILLISECOND, 0);
+                    h.createdTimestamp = defaultDate.getTimeInMillis();
+                }
+                list.add(h);
+            }
+        }
+        return list;
+    }
+
     // --- Worker Helpers (Task-based for await) ---
     public Task<QuerySnapshot> getHabitsTask() {
+        return getHabitsTask(Source.DEFAULT);
+    }
+
+    // Source.CACHE answers from the offline persistence layer without touching the network
+    public Task<QuerySnapshot> getHabitsTask(Source source) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null)
             return null;
         return db.collection("users").document(user.getUid())
                 .collection("habits")
-                .get();
+                .get(source);
     }
 
     // --- Resolution Management ---
+    // Resolution documents are keyed by DateKey.toString(), i.e. yyyy-MM-dd
 
     public interface ResolutionCallback {
         void onCallback(List<String> completedHabitIds);
     }
 
-    public void getResolutionsForDate(String date, ResolutionCallback callback) {
+    public void getResolutionsForDate(DateKey date, ResolutionCallback callback) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null) {
             signInAnonymouslyForResolutions(date, callback);
@@ -117,7 +141,7 @@ public class FirestoreHelper {
         }
 
         DocumentReference docRef = db.collection("users").document(user.getUid())
-                .collection("resolutions").document(date);
+                .collection("resolutions").document(date.toString());
 
         docRef.get().addOnCompleteListener(task -> {
             if (task.isSuccessful()) {
@@ -141,15 +165,19 @@ public class FirestoreHelper {
         });
     }
 
-    public Task<DocumentSnapshot> getResolutionsForDateTask(String date) {
+    public Task<DocumentSnapshot> getResolutionsForDateTask(DateKey date) {
+        return getResolutionsForDateTask(date, Source.DEFAULT);
+    }
+
+    public Task<DocumentSnapshot> getResolutionsForDateTask(DateKey date, Source source) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null)
             return null;
         return db.collection("users").document(user.getUid())
-                .collection("resolutions").document(date).get();
+                .collection("resolutions").document(date.toString()).get(source);
     }
 
-    public void saveResolutions(String date, List<String> completedHabitIds) {
+    public void saveResolutions(DateKey date, List<String> completedHabitIds) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null) {
             auth.signInAnonymously().addOnCompleteListener(task -> {
@@ -160,9 +188,9 @@ public class FirestoreHelper {
             return;
         }
 
-        ResolutionDay day = new ResolutionDay(date, completedHabitIds);
+        ResolutionDay day = new ResolutionDay(date.toString(), completedHabitIds);
         DocumentReference docRef = db.collection("users").document(user.getUid())
-                .collection("resolutions").document(date);
+                .collection("resolutions").document(date.toString());
 
         docRef.set(day).addOnFailureListener(e -> Log.e("Firestore", "Write failed", e));
     }
@@ -205,7 +233,7 @@ public class FirestoreHelper {
         });
     }
 
-    private void signInAnonymouslyForResolutions(String date, ResolutionCallback callback) {
+    private void signInAnonymouslyForResolutions(DateKey date, ResolutionCallback callback) {
         auth.signInAnonymously().addOnCompleteListener(task -> {
             if (task.isSuccessful())
                 getResolutionsForDate(date, callback);
@@ -214,27 +242,56 @@ public class FirestoreHelper {
         });
     }
 
-    public void getResolutionsSince(String startDate, final FirestoreCallbackAll callback) {
+    public void getResolutionsSince(DateKey startDate, final FirestoreCallbackAll callback) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null) {
             callback.onCallback(new ArrayList<>());
             return;
         }
 
-        db.collection("users").document(user.getUid())
-                .collection("resolutions")
-                .whereGreaterThanOrEqualTo(com.google.firebase.firestore.FieldPath.documentId(), startDate)
+        resolutionsSince(user, startDate).get()
+                .addOnCompleteListener(task -> deliverResolutions(task, callback));
+    }
+
+    /** Null when no user is signed in; a failed read fails the task rather than answering an empty list. */
+    public Task<QuerySnapshot> getResolutionsSinceTask(DateKey startDate) {
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null)
+            return null;
+        return resolutionsSince(user, startDate).get();
+    }
+
+    public void getResolutionsBetween(DateKey startDate, DateKey endDate, final FirestoreCallbackAll callback) {
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null) {
+            callback.onCallback(new ArrayList<>());
+            return;
+        }
+
+        resolutionsSince(user, startDate)
+                .whereLessThanOrEqualTo(com.google.firebase.firestore.FieldPath.documentId(), endDate.toString())
                 .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        List<ResolutionDay> list = new ArrayList<>();
-                        for (DocumentSnapshot doc : task.getResult()) {
-                            list.add(doc.toObject(ResolutionDay.class));
-                        }
-                        callback.onCallback(list);
-                    } else {
-                        callback.onCallback(new ArrayList<>());
-                    }
-                });
+                .addOnCompleteListener(task -> deliverResolutions(task, callback));
+    }
+
+    /** Resolution days from a resolutions query. */
+    public static List<ResolutionDay> toResolutionDays(QuerySnapshot snapshot) {
+        List<ResolutionDay> list = new ArrayList<>();
+        for (DocumentSnapshot doc : snapshot) {
+            list.add(doc.toObject(ResolutionDay.class));
+        }
+        return list;
+    }
+
+    // Days are keyed by date, so a range is a range of document ids
+    private Query resolutionsSince(FirebaseUser user, DateKey startDate) {
+        return db.collection("users").document(user.getUid())
+                .collection("resolutions")
+                .whereGreaterThanOrEqualTo(com.google.firebase.firestore.FieldPath.documentId(), startDate.toString());
+    }
+
+    // A failed read answers an empty list, as the callback-based reads always have
+    private static void deliverResolutions(Task<QuerySnapshot> task, FirestoreCallbackAll callback) {
+        callback.onCallback(task.isSuccessful() ? toResolutionDays(task.getResult()) : new ArrayList<>());
     }
 }
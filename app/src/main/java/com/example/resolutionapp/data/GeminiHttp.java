@@ -0,0 +1,209 @@
+package com.example.resolutionapp.data;
+
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * The one OkHttpClient all Gemini calls share, so connections and TLS sessions
+ * are reused across screens and requests multiplex over HTTP/2. Request bodies
+ * are gzipped as they are written, except ones known to be under
+ * {@value #MIN_GZIP_BYTES} bytes, and every call's phase timings are logged.
+ */
+public final class GeminiHttp {
+
+    private static final String TAG = "GeminiHttp";
+    // Smaller bodies don't win back the gzip header
+    private static final long MIN_GZIP_BYTES = 1024;
+
+    private static volatile OkHttpClient client;
+
+    private static final AtomicInteger calls = new AtomicInteger();
+    private static final AtomicInteger reusedConnections = new AtomicInteger();
+    private static volatile String lastTimings;
+
+    private GeminiHttp() {
+    }
+
+    public static OkHttpClient client() {
+        if (client == null) {
+            synchronized (GeminiHttp.class) {
+                if (client == null) {
+                    client = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(4, 5, TimeUnit.MINUTES))
+                            .connectTimeout(30, TimeUnit.SECONDS)
+                            .readTimeout(30, TimeUnit.SECONDS)
+                            .writeTimeout(30, TimeUnit.SECONDS)
+                            .addInterceptor(new GzipRequestInterceptor())
+                            .eventListenerFactory(call -> new PhaseTimer())
+                            .build();
+                }
+            }
+        }
+        return client;
+    }
+
+    /** Call count, connection reuse and the latest call's phase timings, for the diagnostics page. */
+    public static String summary() {
+        String last = lastTimings;
+        return "Gemini HTTP: " + calls.get() + " calls, " + reusedConnections.get() + " on reused connections"
+                + (last != null ? "\nLast call: " + last : "");
+    }
+
+    public static void resetStats() {
+        calls.set(0);
+        reusedConnections.set(0);
+        lastTimings = null;
+    }
+
+    private static final class GzipRequestInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request original = chain.request();
+            RequestBody body = original.body();
+            if (body == null || original.header("Content-Encoding") != null)
+                return chain.proceed(original);
+
+            // Streamed bodies (e.g. GeminiJson's) don't know their length and are always gzipped; measuring
+            // them would mean serializing the whole body first
+            long length = body.contentLength();
+            if (length != -1 && length < MIN_GZIP_BYTES)
+                return chain.proceed(original);
+
+            return chain.proceed(original.newBuilder()
+                    .header("Content-Encoding", "gzip")
+                    .method(original.method(), gzip(body))
+                    .build());
+        }
+
+        // Compresses on the fly as OkHttp writes the body to the connection
+        private static RequestBody gzip(RequestBody body) {
+            return new RequestBody() {
+                @Override
+                public MediaType contentType() {
+                    return body.contentType();
+                }
+
+                @Override
+                public long contentLength() {
+                    return -1;
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    try (BufferedSink gzipSink = Okio.buffer(new GzipSink(sink))) {
+                        body.writeTo(gzipSink);
+                    }
+                }
+            };
+        }
+    }
+
+    // One per call; phases that didn't happen (e.g. on a pooled connection) stay at 0
+    private static final class PhaseTimer extends EventListener {
+        private long callStart;
+        private long dnsStart;
+        private long dnsMs;
+        private long connectStart;
+        private long connectMs;
+        private long tlsStart;
+        private long tlsMs;
+        private long requestStart;
+        private long ttfbMs;
+
+        private static long now() {
+            return SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = now();
+            calls.incrementAndGet();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = now();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            dnsMs = now() - dnsStart;
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStart = now();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            tlsStart = now();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            tlsMs = now() - tlsStart;
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            connectMs = now() - connectStart;
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            if (connectStart == 0)
+                reusedConnections.incrementAndGet();
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestStart = now();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            ttfbMs = now() - requestStart;
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            report(call, null);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            report(call, ioe);
+        }
+
+        private void report(Call call, IOException failure) {
+            String timings = call.request().method() + " " + call.request().url().encodedPath()
+                    + " dns=" + dnsMs + "ms connect=" + connectMs + "ms tls=" + tlsMs + "ms ttfb=" + ttfbMs
+                    + "ms total=" + (now() - callStart) + "ms" + (failure != null ? " failed" : "");
+            lastTimings = timings;
+            Log.d(TAG, timings);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.resolutionapp.data;
+
+import com.example.resolutionapp.model.ChatMessage;
+import java.io.IOException;
+import java.util.List;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+
+/**
+ * Streaming codec for generateContent bodies, written directly against Okio.
+ * Requests are written straight to the connection and replies are read token
+ * by token, keeping only candidates[0].content.parts[*].text, so neither side
+ * builds a JSON tree, goes through a Reader/Writer or holds the whole body as
+ * a String. Plain Java, so it also runs in JVM tests.
+ */
+final class GeminiJson {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private static final ByteString STRING_TERMINALS = ByteString.encodeUtf8("\"\\");
+    private static final ByteString LITERAL_TERMINALS = ByteString.encodeUtf8(",}] \t\r\n");
+    private static final String[] REPLACEMENTS = new String[128];
+    // Far deeper than any reply; stops a malformed body from overflowing the stack in skipValue
+    private static final int MAX_DEPTH = 64;
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            REPLACEMENTS[i] = String.format("\\u%04x", i);
+        }
+        REPLACEMENTS['"'] = "\\\"";
+        REPLACEMENTS['\\'] = "\\\\";
+        REPLACEMENTS['\t'] = "\\t";
+        REPLACEMENTS['\b'] = "\\b";
+        REPLACEMENTS['\n'] = "\\n";
+        REPLACEMENTS['\r'] = "\\r";
+        REPLACEMENTS['\f'] = "\\f";
+    }
+
+    private GeminiJson() {
+    }
+
+    /**
+     * A body with the system context as a leading user turn (acknowledged by
+     * the model), then history[from, to) and the new message. Serialized each
+     * time it is written, so retries resend the same bytes. The turns are read
+     * by index when written, so the caller may append to the history meanwhile
+     * but not change what is already in it.
+     */
+    static RequestBody requestBody(List<ChatMessage> history, int from, int to, String userMessage,
+            String systemContext) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                writeRequest(sink, history, from, to, userMessage, systemContext);
+            }
+        };
+    }
+
+    static void writeRequest(BufferedSink sink, List<ChatMessage> history, int from, int to, String userMessage,
+            String systemContext) throws IOException {
+        sink.writeUtf8("{\"contents\":[");
+        if (systemContext != null && !systemContext.isEmpty()) {
+            writeTurn(sink, ChatMessage.ROLE_USER, "System Context: " + systemContext);
+            sink.writeByte(',');
+            writeTurn(sink, ChatMessage.ROLE_MODEL, "Understood.");
+            sink.writeByte(',');
+        }
+        for (int i = from; i < to; i++) {
+            ChatMessage msg = history.get(i);
+            writeTurn(sink, msg.getRole(), msg.getContent());
+            sink.writeByte(',');
+        }
+        writeTurn(sink, ChatMessage.ROLE_USER, userMessage);
+        sink.writeUtf8("]}");
+        sink.emit(); // Not close(), that would close the sink under OkHttp
+    }
+
+    private static void writeTurn(BufferedSink sink, String role, String text) throws IOException {
+        sink.writeUtf8("{\"role\":");
+        writeString(sink, role);
+        sink.writeUtf8(",\"parts\":[{\"text\":");
+        writeString(sink, text);
+        sink.writeUtf8("}]}");
+    }
+
+    // Copies runs of plain characters in one go and escapes only what JSON requires
+    private static void writeString(BufferedSink sink, String value) throws IOException {
+        if (value == null) {
+            sink.writeUtf8("null");
+            return;
+        }
+        sink.writeByte('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement = c < 128 ? REPLACEMENTS[c] : null;
+            if (replacement == null)
+                continue;
+            if (last < i)
+                sink.writeUtf8(value, last, i);
+            sink.writeUtf8(replacement);
+            last = i + 1;
+        }
+        if (last < length)
+            sink.writeUtf8(value, last, length);
+        sink.writeByte('"');
+    }
+
+    /** The reply text from a generateContent body, or null if it has no candidate. */
+    static String readText(BufferedSource source) throws IOException {
+        Reader reader = new Reader(source);
+        String text = null;
+        reader.begin('{');
+        while (reader.hasNext('}')) {
+            String name = reader.nextName();
+            if (text == null && name.equals("candidates")) {
+                text = readFirstCandidate(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        return text;
+    }
+
+    /** Same for one server-sent event's data. */
+    static String readText(String json) throws IOException {
+        return readText(new Buffer().writeUtf8(json));
+    }
+
+    /** Receives the text of each server-sent event as it arrives. */
+    interface ChunkListener {
+        void onChunk(String text);
+    }
+
+    /**
+     * Reads a streamGenerateContent reply until the stream ends, passing the
+     * text of each event with any to the listener.
+     */
+    static void readEvents(BufferedSource source, ChunkListener listener) throws IOException {
+        // Each event is a "data: {json}" line followed by a blank line
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:"))
+                continue;
+            String chunk = readText(line.substring(5).trim());
+            if (chunk != null && !chunk.isEmpty())
+                listener.onChunk(chunk);
+        }
+    }
+
+    // Null for an empty array, "" for a candidate without content (e.g. blocked)
+    private static String readFirstCandidate(Reader reader) throws IOException {
+        String text = null;
+        reader.begin('[');
+        if (reader.hasNext(']')) {
+            text = "";
+            reader.begin('{');
+            while (reader.hasNext('}')) {
+                if (reader.nextName().equals("content")) {
+                    text = readParts(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            while (reader.hasNext(']')) {
+                reader.skipValue();
+            }
+        }
+        return text;
+    }
+
+    private static String readParts(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        reader.begin('{');
+        while (reader.hasNext('}')) {
+            if (!reader.nextName().equals("parts")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.begin('[');
+            while (reader.hasNext(']')) {
+                reader.begin('{');
+                while (reader.hasNext('}')) {
+                    if (reader.nextName().equals("text")) {
+                        reader.nextString(text);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Just enough of a pull parser for the reply: objects and arrays are walked
+     * with begin/hasNext, strings are decoded straight from the source's buffer
+     * and anything else is skipped without being decoded.
+     */
+    private static final class Reader {
+        private final BufferedSource source;
+        private int depth;
+
+        Reader(BufferedSource source) {
+            this.source = source;
+        }
+
+        void begin(char open) throws IOException {
+            expect(open);
+        }
+
+        /** True if the object or array has another element; consumes the closing bracket otherwise. */
+        boolean hasNext(char close) throws IOException {
+            byte b = peek();
+            if (b == ',') {
+                source.skip(1);
+                b = peek();
+            }
+            if (b == close) {
+                source.skip(1);
+                return false;
+            }
+            return true;
+        }
+
+        String nextName() throws IOException {
+            StringBuilder name = new StringBuilder();
+            nextString(name);
+            expect(':');
+            return name.toString();
+        }
+
+        void nextString(StringBuilder out) throws IOException {
+            expect('"');
+            while (true) {
+                long index = source.indexOfElement(STRING_TERMINALS);
+                if (index == -1)
+                    throw new IOException("Unterminated string");
+                out.append(source.readUtf8(index));
+                if (source.readByte() == '"')
+                    return;
+                readEscape(out);
+            }
+        }
+
+        void skipValue() throws IOException {
+            byte b = peek();
+            if (b == '{') {
+                enter();
+                while (hasNext('}')) {
+                    skipString();
+                    expect(':');
+                    skipValue();
+                }
+                depth--;
+            } else if (b == '[') {
+                enter();
+                while (hasNext(']')) {
+                    skipValue();
+                }
+                depth--;
+            } else if (b == '"') {
+                skipString();
+            } else {
+                // Number, true, false or null
+                long index = source.indexOfElement(LITERAL_TERMINALS);
+                if (index <= 0)
+                    throw new IOException("Unexpected response shape at '" + (char) b + "'");
+                source.skip(index);
+            }
+        }
+
+        private void enter() throws IOException {
+            if (++depth > MAX_DEPTH)
+                throw new IOException("Unexpected response shape: nested deeper than " + MAX_DEPTH);
+            source.skip(1);
+        }
+
+        private void skipString() throws IOException {
+            expect('"');
+            while (true) {
+                long index = source.indexOfElement(STRING_TERMINALS);
+                if (index == -1)
+                    throw new IOException("Unterminated string");
+                source.skip(index);
+                if (source.readByte() == '"')
+                    return;
+                source.skip(1); // The escaped character; a unicode escape's digits are then skipped as text
+            }
+        }
+
+        private void readEscape(StringBuilder out) throws IOException {
+            byte c = source.readByte();
+            switch (c) {
+                case 'u':
+                    String hex = source.readUtf8(4);
+                    try {
+                        out.append((char) Integer.parseInt(hex, 16));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Bad escape \\u" + hex, e);
+                    }
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                default: // " \ and /
+                    out.append((char) c);
+            }
+        }
+
+        private void expect(char c) throws IOException {
+            byte b = peek();
+            if (b != c)
+                throw new IOException("Unexpected response shape: expected '" + c + "' but was '" + (char) b + "'");
+            source.skip(1);
+        }
+
+        // Next non-whitespace byte, left in the buffer
+        private byte peek() throws IOException {
+            while (true) {
+                source.require(1);
+                byte b = source.getBuffer().getByte(0);
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t')
+                    return b;
+                source.skip(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.resolutionapp.data;
+
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Sends Gemini requests through a client-side rate limiter and retries 429 and
+ * 5xx replies with jittered exponential backoff, waiting as long as the
+ * server's Retry-After asks. Every request has a {@link Handle} that cancels
+ * it wherever it is: waiting for a token, in flight or between retries.
+ */
+public class GeminiRequestScheduler {
+
+    private static final String TAG = "GeminiScheduler";
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    // A longer Retry-After (e.g. a daily quota) is reported instead of waited out
+    private static final long MAX_RETRY_AFTER_MS = 60_000;
+
+    // Shared by every helper, the quota is per API key: a burst of 4, then 15 per minute
+    private static final TokenBucket bucket = new TokenBucket(4, 4000);
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private static final Random random = new Random();
+
+    private final OkHttpClient client;
+
+    /** A cancellable request. Once cancelled no more attempts are made and no callback fires. */
+    public static final class Handle {
+        private boolean canceled;
+        private Call call;
+        private ScheduledFuture<?> pending;
+
+        public synchronized void cancel() {
+            if (canceled)
+                return;
+            canceled = true;
+            if (call != null)
+                call.cancel();
+            if (pending != null)
+                pending.cancel(false);
+        }
+
+        public synchronized boolean isCanceled() {
+            return canceled;
+        }
+
+        synchronized boolean setCall(Call call) {
+            this.call = call;
+            return !canceled;
+        }
+
+        synchronized boolean setPending(ScheduledFuture<?> pending) {
+            this.pending = pending;
+            if (canceled)
+                pending.cancel(false);
+            return !canceled;
+        }
+    }
+
+    public GeminiRequestScheduler(OkHttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Sends the request once the rate limit allows. The callback sees the
+     * final attempt only, and nothing at all after the handle is cancelled.
+     */
+    public void execute(Handle handle, Request request, Callback callback) {
+        attempt(handle, request, callback, 1);
+    }
+
+    private void attempt(Handle handle, Request request, Callback callback, int attempt) {
+        if (handle.isCanceled())
+            return;
+        long wait = bucket.reserve();
+        if (wait > 0) {
+            Log.d(TAG, "Rate limited, sending in " + wait + "ms");
+            handle.setPending(timer.schedule(() -> send(handle, request, callback, attempt), wait,
+                    TimeUnit.MILLISECONDS));
+        } else {
+            send(handle, request, callback, attempt);
+        }
+    }
+
+    private void send(Handle handle, Request request, Callback callback, int attempt) {
+        Call call = client.newCall(request);
+        if (!handle.setCall(call))
+            return;
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (!handle.isCanceled())
+                    callback.onFailure(call, e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                if (handle.isCanceled()) {
+                    response.close();
+                    return;
+                }
+                long delay = isRetryable(response.code()) && attempt < MAX_ATTEMPTS ? retryDelay(response, attempt)
+                        : -1;
+                if (delay < 0 || delay > MAX_RETRY_AFTER_MS) {
+                    callback.onResponse(call, response);
+                    return;
+                }
+
+                Log.w(TAG, "HTTP " + response.code() + ", retry " + attempt + " in " + delay + "ms");
+                response.close();
+                handle.setPending(timer.schedule(() -> attempt(handle, request, callback, attempt + 1), delay,
+                        TimeUnit.MILLISECONDS));
+            }
+        });
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 429 || code >= 500;
+    }
+
+    // Retry-After in seconds or as an HTTP date when given, otherwise backoff with equal jitter
+    private static long retryDelay(Response response, int attempt) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                Date date = response.headers().getDate("Retry-After");
+                if (date != null)
+                    return Math.max(0, date.getTime() - System.currentTimeMillis());
+            }
+        }
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (attempt - 1));
+        synchronized (random) {
+            return backoff / 2 + (long) (random.nextDouble() * backoff / 2);
+        }
+    }
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final long refillIntervalMs;
+        private double tokens;
+        private long lastRefill = SystemClock.elapsedRealtime();
+
+        TokenBucket(int capacity, long refillIntervalMs) {
+            this.capacity = capacity;
+            this.refillIntervalMs = refillIntervalMs;
+            this.tokens = capacity;
+        }
+
+        /** Takes a token, returning how long to wait before it may be used. */
+        synchronized long reserve() {
+            long now = SystemClock.elapsedRealtime();
+            tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / refillIntervalMs);
+            lastRefill = now;
+            // Going negative queues the caller behind earlier reservations
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * refillIntervalMs);
+        }
+    }
+}
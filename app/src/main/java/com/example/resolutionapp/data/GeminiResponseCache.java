@@ -0,0 +1,219 @@
+package com.example.resolutionapp.data;
+
+import android.content.Context;
+import android.util.Log;
+import com.example.resolutionapp.model.ChatMessage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Content-addressed cache of Gemini replies, one file per request hash, kept
+ * under a byte budget in least-recently-used order. Entries older than the TTL
+ * are treated as misses. Entries are written to a temp file and renamed into
+ * place, so a crash mid-write never leaves a truncated reply to be served.
+ * Does disk IO, so call it off the main thread.
+ */
+public class GeminiResponseCache {
+
+    private static final String TAG = "GeminiResponseCache";
+    private static final String DIR_NAME = "gemini_responses";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long DEFAULT_MAX_BYTES = 2 * 1024 * 1024;
+    private static final long DEFAULT_TTL_MS = TimeUnit.HOURS.toMillis(24);
+
+    private static GeminiResponseCache instance;
+
+    private final File dir;
+    private final long maxBytes;
+    private volatile long ttlMs = DEFAULT_TTL_MS;
+    // File name -> size in bytes, in access order (eldest first)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private boolean loaded;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public GeminiResponseCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    public static synchronized GeminiResponseCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new GeminiResponseCache(new File(context.getApplicationContext().getCacheDir(), DIR_NAME),
+                    DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    public void setTtl(long duration, TimeUnit unit) {
+        ttlMs = unit.toMillis(duration);
+    }
+
+    /** Hash of everything that determines the reply. Fields are length-prefixed so they can't run together. */
+    public static String key(String model, String systemContext, List<ChatMessage> history, String message) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, model);
+            update(digest, systemContext);
+            for (ChatMessage msg : history) {
+                update(digest, msg.getRole());
+                update(digest, msg.getContent());
+            }
+            update(digest, message);
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 is always available on Android
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = value != null ? bytes.length : -1;
+        digest.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8),
+                (byte) length });
+        digest.update(bytes);
+    }
+
+    /** The cached reply, or null on a miss or expired entry. */
+    public synchronized String get(String key) {
+        ensureLoaded();
+        File file = new File(dir, key);
+        if (entries.get(key) == null || !file.exists()) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+            long createdAt = source.readLong();
+            if (System.currentTimeMillis() - createdAt > ttlMs) {
+                remove(key);
+                misses.incrementAndGet();
+                return null;
+            }
+            String text = source.readUtf8();
+            // Persist the LRU position across restarts
+            file.setLastModified(System.currentTimeMillis());
+            hits.incrementAndGet();
+            return text;
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable entry " + key, e);
+            remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public synchronized void put(String key, String text) {
+        ensureLoaded();
+        File file = new File(dir, key);
+        File temp = new File(dir, key + TEMP_SUFFIX);
+        try (BufferedSink sink = Okio.buffer(Okio.sink(temp))) {
+            sink.writeLong(System.currentTimeMillis());
+            sink.writeUtf8(text);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write entry " + key, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.w(TAG, "Could not move entry " + key + " into place");
+            temp.delete();
+            return;
+        }
+
+        Long previous = entries.put(key, file.length());
+        totalBytes += file.length() - (previous != null ? previous : 0);
+        trimToSize();
+    }
+
+    public synchronized void clear() {
+        ensureLoaded();
+        for (String key : entries.keySet()) {
+            new File(dir, key).delete();
+        }
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public int getHitCount() {
+        return hits.get();
+    }
+
+    public int getMissCount() {
+        return misses.get();
+    }
+
+    /** Zeroes the hit and miss counters, keeping the entries. */
+    public void resetCounts() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /** Counts and size for the diagnostics page. Loads the index on first use, so not on the main thread. */
+    @Override
+    public synchronized String toString() {
+        ensureLoaded();
+        return "Gemini cache: " + hits.get() + " hits, " + misses.get() + " misses, " + entries.size()
+                + " entries, " + (totalBytes / 1024) + " KB";
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null)
+            totalBytes -= size;
+        new File(dir, key).delete();
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            totalBytes -= eldest.getValue();
+            new File(dir, eldest.getKey()).delete();
+            it.remove();
+        }
+    }
+
+    // Rebuild the index lazily, ordered by last access as recorded in the file times
+    private void ensureLoaded() {
+        if (loaded)
+            return;
+        loaded = true;
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "Could not create " + dir);
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete(); // Left behind by a write that never finished
+                continue;
+            }
+            entries.put(file.getName(), file.length());
+            totalBytes += file.length();
+        }
+        trimToSize();
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.resolutionapp.data;
+
+import android.util.Log;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.model.Habit;
+import com.example.resolutionapp.model.ResolutionDay;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.QuerySnapshot;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact summary of the user's habits for AI coaching prompts: per habit,
+ * its completion rate over the last {@link #WINDOW_DAYS} days, the current
+ * streak and the days missed this week. The history is read on first use
+ * (by the nightly insight, not at startup) and then kept up to date from the
+ * screens that change it; a saved day only rebuilds the lines of the habits
+ * it changed, so the digest is ready without a Firestore round trip. Main
+ * thread only, where Firestore delivers its callbacks.
+ */
+public class HabitDigest {
+
+    private static final String TAG = "HabitDigest";
+
+    public static final int WINDOW_DAYS = 30;
+    private static final int RECENT_DAYS = 7;
+    // A little extra so the window still covers a month after a few days of rollover
+    private static final int LOAD_DAYS = WINDOW_DAYS + RECENT_DAYS;
+
+    public static final String NO_HABITS = "No habits set up yet.";
+    private static final String HEADER = "Habits, last " + WINDOW_DAYS
+            + " days (done/scheduled, streak, missed this week):";
+
+    private static HabitDigest instance;
+
+    public interface DigestCallback {
+        // digest is null when the history couldn't be read from the server
+        void onDigest(String digest);
+    }
+
+    private static final class Waiter {
+        final DateKey asOf;
+        final DigestCallback callback;
+
+        Waiter(DateKey asOf, DigestCallback callback) {
+            this.asOf = asOf;
+            this.callback = callback;
+        }
+    }
+
+    private List<Habit> habits; // Null until loaded
+    private final Map<DateKey, Set<String>> completed = new HashMap<>();
+    private DateKey loadedFrom;
+    // One line per habit id, as of linesAsOf
+    private final Map<String, String> lines = new HashMap<>();
+    private DateKey linesAsOf;
+    private String digest; // Null when a line changed
+    private List<Waiter> waiters; // Non-null while reading
+    // Changes made while reading, which the read may predate
+    private final Map<DateKey, Set<String>> savedWhileLoading = new HashMap<>();
+    private List<Habit> habitsWhileLoading;
+
+    HabitDigest() {
+    }
+
+    public static synchronized HabitDigest getInstance() {
+        if (instance == null) {
+            instance = new HabitDigest();
+        }
+        return instance;
+    }
+
+    /**
+     * Delivers the digest as seen from the given day immediately when the
+     * history is loaded, otherwise once read. Failed reads are not kept, so
+     * the next call tries again.
+     */
+    public void get(DateKey asOf, DigestCallback callback) {
+        if (habits != null && !asOf.plusDays(-WINDOW_DAYS).isBefore(loadedFrom)) {
+            callback.onDigest(current(asOf));
+            return;
+        }
+        if (waiters != null) {
+            waiters.add(new Waiter(asOf, callback));
+            return;
+        }
+        waiters = new ArrayList<>();
+        waiters.add(new Waiter(asOf, callback));
+        fetch(asOf.plusDays(-LOAD_DAYS));
+    }
+
+    /** A day's checklist was saved; only the habits whose state changed that day are rebuilt. */
+    public void onResolutionsSaved(DateKey date, Collection<String> completedHabitIds) {
+        if (habits == null) {
+            if (waiters != null)
+                savedWhileLoading.put(date, new HashSet<>(completedHabitIds));
+            return;
+        }
+
+        Set<String> now = new HashSet<>(completedHabitIds);
+        Set<String> before = completed.put(date, now);
+        if (linesAsOf == null || date.isAfter(linesAsOf) || date.isBefore(linesAsOf.plusDays(-(WINDOW_DAYS - 1))))
+            return;
+        for (Habit habit : habits) {
+            boolean wasDone = before != null && before.contains(habit.getId());
+            if (wasDone != now.contains(habit.getId())) {
+                lines.put(habit.getId(), line(habit, completed, linesAsOf));
+                digest = null;
+            }
+        }
+    }
+
+    /** The habit list was reloaded, e.g. after adding or deleting one. */
+    public void onHabitsChanged(List<Habit> newHabits) {
+        if (habits == null) {
+            if (waiters != null)
+                habitsWhileLoading = new ArrayList<>(newHabits);
+            return;
+        }
+        habits = new ArrayList<>(newHabits);
+        linesAsOf = null;
+    }
+
+    // Package-private so tests can load history without Firestore
+    void onLoaded(List<Habit> loadedHabits, Map<DateKey, Set<String>> byDay, DateKey from) {
+        habits = new ArrayList<>(loadedHabits);
+        completed.clear();
+        completed.putAll(byDay);
+        loadedFrom = from;
+        linesAsOf = null;
+    }
+
+    private String current(DateKey asOf) {
+        if (!asOf.equals(linesAsOf)) {
+            lines.clear();
+            for (Habit habit : habits) {
+                lines.put(habit.getId(), line(habit, completed, asOf));
+            }
+            linesAsOf = asOf;
+            digest = null;
+        }
+        if (digest == null) {
+            if (habits.isEmpty()) {
+                digest = NO_HABITS;
+            } else {
+                StringBuilder out = new StringBuilder(HEADER);
+                for (Habit habit : habits) {
+                    out.append('\n').append(lines.get(habit.getId()));
+                }
+                digest = out.toString();
+            }
+        }
+        return digest;
+    }
+
+    private void fetch(DateKey from) {
+        FirestoreHelper firestoreHelper = new FirestoreHelper();
+        Task<QuerySnapshot> habitsTask = firestoreHelper.getHabitsTask();
+        Task<QuerySnapshot> daysTask = firestoreHelper.getResolutionsSinceTask(from);
+        if (habitsTask == null || daysTask == null) {
+            finish(null, null, from);
+            return;
+        }
+
+        Tasks.whenAllComplete(habitsTask, daysTask).addOnCompleteListener(all -> {
+            // Offline, Firestore answers from its cache instead of failing, which may be empty or partial
+            if (!habitsTask.isSuccessful() || !daysTask.isSuccessful()
+                    || habitsTask.getResult().getMetadata().isFromCache()
+                    || daysTask.getResult().getMetadata().isFromCache()) {
+                Log.w(TAG, "Could not read habit history from the server", !habitsTask.isSuccessful()
+                        ? habitsTask.getException() : daysTask.getException());
+                finish(null, null, from);
+                return;
+            }
+            List<Habit> loaded = FirestoreHelper.toHabits(habitsTask.getResult());
+            Collections.sort(loaded, (a, b) -> Long.compare(a.getCreatedTimestamp(), b.getCreatedTimestamp()));
+            finish(loaded, byDay(FirestoreHelper.toResolutionDays(daysTask.getResult())), from);
+        });
+    }
+
+    private void finish(List<Habit> loadedHabits, Map<DateKey, Set<String>> byDay, DateKey from) {
+        List<Waiter> callbacks = waiters;
+        waiters = null;
+        if (loadedHabits != null) {
+            onLoaded(habitsWhileLoading != null ? habitsWhileLoading : loadedHabits, byDay, from);
+            completed.putAll(savedWhileLoading);
+        }
+        savedWhileLoading.clear();
+        habitsWhileLoading = null;
+
+        for (Waiter waiter : callbacks) {
+            if (loadedHabits == null) {
+                waiter.callback.onDigest(null);
+            } else {
+                get(waiter.asOf, waiter.callback);
+            }
+        }
+    }
+
+    public static Map<DateKey, Set<String>> byDay(List<ResolutionDay> days) {
+        Map<DateKey, Set<String>> byDay = new HashMap<>();
+        for (ResolutionDay day : days) {
+            DateKey date = day != null ? day.getDateKey() : null;
+            if (date != null && day.getCompletedHabitIds() != null)
+                byDay.put(date, new HashSet<>(day.getCompletedHabitIds()));
+        }
+        return byDay;
+    }
+
+    /**
+     * One line per habit, e.g. "Read: 18/25 (72%), streak 4, missed 10-14 10-16".
+     * Today counts toward the rate and streak only once it is done, since the
+     * day isn't over.
+     */
+    public static String build(List<Habit> habits, Map<DateKey, Set<String>> completed, DateKey today) {
+        if (habits == null || habits.isEmpty())
+            return NO_HABITS;
+
+        StringBuilder out = new StringBuilder(HEADER);
+        for (Habit habit : habits) {
+            out.append('\n').append(line(habit, completed, today));
+        }
+        return out.toString();
+    }
+
+    private static String line(Habit habit, Map<DateKey, Set<String>> completed, DateKey today) {
+        DateKey created = DateKey.fromMillis(habit.getCreatedTimestamp());
+        int scheduled = 0;
+        int done = 0;
+        int streak = 0;
+        boolean streakOpen = true;
+        List<DateKey> missed = new ArrayList<>();
+
+        for (int i = 0; i < WINDOW_DAYS; i++) {
+            DateKey day = today.plusDays(-i);
+            if (day.isBefore(created))
+                break;
+            if (!isScheduledOn(habit, day))
+                continue;
+
+            Set<String> ids = completed.get(day);
+            boolean isDone = ids != null && ids.contains(habit.getId());
+            if (i == 0 && !isDone)
+                continue; // Still time left today
+
+            scheduled++;
+            if (isDone) {
+                done++;
+                if (streakOpen)
+                    streak++;
+            } else {
+                streakOpen = false;
+                if (i < RECENT_DAYS)
+                    missed.add(day);
+            }
+        }
+
+        StringBuilder out = new StringBuilder(habit.getTitle()).append(": ");
+        if (scheduled == 0)
+            return out.append("new").toString();
+        out.append(done).append('/').append(scheduled)
+                .append(" (").append(done * 100 / scheduled).append("%), streak ").append(streak);
+        if (!missed.isEmpty()) {
+            out.append(", missed");
+            for (int i = missed.size() - 1; i >= 0; i--) {
+                out.append(' ').append(missed.get(i).toString(), 5, 10); // MM-dd
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean isScheduledOn(Habit habit, DateKey day) {
+        List<String> frequency = habit.getFrequency();
+        return frequency == null || frequency.isEmpty() || frequency.contains(day.getDayName());
+    }
+}
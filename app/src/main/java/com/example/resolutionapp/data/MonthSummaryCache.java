@@ -0,0 +1,205 @@
+package com.example.resolutionapp.data;
+
+import android.util.LruCache;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.model.Habit;
+import com.example.resolutionapp.model.MonthSummary;
+import com.example.resolutionapp.model.ResolutionDay;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-month completion counts for the calendar, kept in a small LRU so paging
+ * back and forth between months is served from memory. Each month queries only
+ * its own resolutions; the habit list is loaded once and shared by all months
+ * until the next {@link #invalidate()}. All calls are expected on the main
+ * thread, where Firestore delivers its callbacks.
+ */
+public class MonthSummaryCache {
+
+    private static final int MAX_MONTHS = 12;
+
+    private static MonthSummaryCache instance;
+
+    public interface SummaryCallback {
+        void onSummary(MonthSummary summary);
+    }
+
+    private final FirestoreHelper firestoreHelper;
+    private final LruCache<Integer, MonthSummary> cache = new LruCache<>(MAX_MONTHS);
+    // Callbacks waiting on a month that is currently being fetched
+    private final Map<Integer, List<SummaryCallback>> pending = new HashMap<>();
+    private List<Habit> habits;
+    // Month fetches waiting on the habit list, null when it isn't being fetched
+    private List<FirestoreHelper.HabitCallback> habitWaiters;
+    private int generation;
+
+    private MonthSummaryCache() {
+        firestoreHelper = new FirestoreHelper();
+    }
+
+    public static synchronized MonthSummaryCache getInstance() {
+        if (instance == null) {
+            instance = new MonthSummaryCache();
+        }
+        return instance;
+    }
+
+    public static int monthKey(int year, int month) {
+        return year * 12 + month;
+    }
+
+    public MonthSummary getCached(int year, int month) {
+        return cache.get(monthKey(year, month));
+    }
+
+    /** Delivers the summary immediately when cached, otherwise once fetched. */
+    public void get(int year, int month, SummaryCallback callback) {
+        int key = monthKey(year, month);
+        MonthSummary cached = cache.get(key);
+        if (cached != null) {
+            if (callback != null)
+                callback.onSummary(cached);
+            return;
+        }
+
+        List<SummaryCallback> waiters = pending.get(key);
+        if (waiters != null) {
+            if (callback != null)
+                waiters.add(callback);
+            return;
+        }
+
+        waiters = new ArrayList<>();
+        if (callback != null)
+            waiters.add(callback);
+        pending.put(key, waiters);
+        fetch(year, month, waiters);
+    }
+
+    public void prefetch(int year, int month) {
+        get(year, month, null);
+    }
+
+    /** Drops everything; in-flight fetches still answer their callers but are not cached. */
+    public void invalidate() {
+        generation++;
+        cache.evictAll();
+        pending.clear();
+        habits = null;
+        habitWaiters = null;
+    }
+
+    private void getHabits(FirestoreHelper.HabitCallback callback) {
+        if (habits != null) {
+            callback.onCallback(habits);
+            return;
+        }
+        if (habitWaiters != null) {
+            habitWaiters.add(callback);
+            return;
+        }
+
+        final int requestGeneration = generation;
+        final List<FirestoreHelper.HabitCallback> waiters = new ArrayList<>();
+        waiters.add(callback);
+        habitWaiters = waiters;
+        firestoreHelper.getHabits(loaded -> {
+            if (requestGeneration == generation) {
+                habits = loaded;
+                habitWaiters = null;
+            }
+            for (FirestoreHelper.HabitCallback waiter : waiters) {
+                waiter.onCallback(loaded);
+            }
+        });
+    }
+
+    private void fetch(int year, int month, List<SummaryCallback> waiters) {
+        final int requestGeneration = generation;
+        final int key = monthKey(year, month);
+        final List<List<Habit>> habitsRef = new ArrayList<>();
+        final List<List<ResolutionDay>> daysRef = new ArrayList<>();
+
+        DateKey startDate = DateKey.of(year, month, 1);
+        DateKey endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
+
+        Runnable checkDone = () -> {
+            if (habitsRef.isEmpty() || daysRef.isEmpty())
+                return;
+            MonthSummary summary = buildSummary(year, month, habitsRef.get(0), daysRef.get(0));
+            if (requestGeneration == generation) {
+                cache.put(key, summary);
+                pending.remove(key);
+            }
+            for (SummaryCallback callback : waiters) {
+                callback.onSummary(summary);
+            }
+        };
+
+        getHabits(habits -> {
+            habitsRef.add(habits);
+            checkDone.run();
+        });
+        firestoreHelper.getResolutionsBetween(startDate, endDate, days -> {
+            daysRef.add(days);
+            checkDone.run();
+        });
+    }
+
+    private MonthSummary buildSummary(int year, int month, List<Habit> habits, List<ResolutionDay> days) {
+        DateKey first = DateKey.of(year, month, 1);
+        MonthSummary summary = new MonthSummary(year, month, first.lengthOfMonth());
+
+        DateKey[] created = createdDays(habits);
+        int[] completed = new int[summary.getDaysInMonth() + 1];
+        for (ResolutionDay day : days) {
+            if (day == null || day.getCompletedHabitIds() == null)
+                continue;
+            DateKey date = day.getDateKey();
+            if (date != null && date.getYear() == year && date.getMonth() == month)
+                completed[date.getDayOfMonth()] = day.getCompletedHabitIds().size();
+        }
+
+        for (int i = 1; i <= summary.getDaysInMonth(); i++) {
+            summary.setCounts(i, completed[i], countScheduledHabits(habits, created, first.plusDays(i - 1)));
+        }
+        return summary;
+    }
+
+    /** Each habit's creation day, worked out once so the per-day counts don't convert timestamps. */
+    public static DateKey[] createdDays(List<Habit> habits) {
+        if (habits == null)
+            return new DateKey[0];
+        DateKey[] created = new DateKey[habits.size()];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = DateKey.fromMillis(habits.get(i).getCreatedTimestamp());
+        }
+        return created;
+    }
+
+    /** Number of habits that existed and were scheduled on the given day; created is from {@link #createdDays}. */
+    public static int countScheduledHabits(List<Habit> habits, DateKey[] created, DateKey date) {
+        if (habits == null)
+            return 0;
+        int count = 0;
+        String dayName = date.getDayName();
+
+        for (int i = 0; i < created.length; i++) {
+            // If the day we are checking is BEFORE the creation day, skip this habit.
+            if (date.isBefore(created[i])) {
+                continue;
+            }
+
+            Habit h = habits.get(i);
+            if (h.getFrequency() == null || h.getFrequency().isEmpty()) {
+                count++;
+            } else if (h.getFrequency().contains(dayName)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -7,6 +7,7 @@ public class ChatMessage {
     private String role;
     private String content;
     private long timestamp;
+    private int tokens = -1; // Estimated lazily, reset when the content changes
 
     public ChatMessage() {
     }
@@ -31,6 +32,23 @@ public class ChatMessage {
 
     public void setContent(String content) {
         this.content = content;
+        tokens = -1;
+    }
+
+    /**
+     * Rough token count for budgeting request size: about four characters per
+     * token plus a few for the turn's role and framing.
+     */
+    @com.google.firebase.firestore.Exclude
+    public int getTokenEstimate() {
+        if (tokens < 0) {
+            tokens = estimateTokens(content) + 4;
+        }
+        return tokens;
+    }
+
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
     }
 
     public long getTimestamp() {
@@ -0,0 +1,254 @@
+package com.example.resolutionapp.model;
+
+import java.util.Calendar;
+
+/**
+ * A calendar day in the device's time zone, stored as days since 1970-01-01.
+ * Its string form is the yyyy-MM-dd used for Firestore resolution document IDs,
+ * always written with ASCII digits whatever the default locale. Months follow
+ * {@link Calendar} and are 0-based.
+ */
+public final class DateKey implements Comparable<DateKey> {
+
+    private static final String[] DAY_NAMES = { "SUNDAY", "MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY",
+            "SATURDAY" };
+
+    private final int epochDay;
+    private final int year;
+    private final int month; // 0-based
+    private final int dayOfMonth;
+    private String text; // Formatted lazily, at most once
+
+    private DateKey(int epochDay) {
+        this.epochDay = epochDay;
+        // Civil-from-days, see http://howardhinnant.github.io/date_algorithms.html
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int m = mp < 10 ? mp + 3 : mp - 9; // 1-based
+        this.dayOfMonth = doy - (153 * mp + 2) / 5 + 1;
+        this.month = m - 1;
+        this.year = yoe + era * 400 + (m <= 2 ? 1 : 0);
+    }
+
+    public static DateKey ofEpochDay(int epochDay) {
+        return new DateKey(epochDay);
+    }
+
+    public static DateKey of(int year, int month, int dayOfMonth) {
+        if (month < 0 || month > 11 || dayOfMonth < 1 || dayOfMonth > lengthOfMonth(year, month))
+            throw new IllegalArgumentException("Invalid date " + year + "/" + (month + 1) + "/" + dayOfMonth);
+        return new DateKey(toEpochDay(year, month + 1, dayOfMonth));
+    }
+
+    /** The day the calendar's current time falls on, in the calendar's own time zone. */
+    public static DateKey from(Calendar cal) {
+        return of(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH), cal.get(Calendar.DAY_OF_MONTH));
+    }
+
+    public static DateKey fromMillis(long millis) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(millis);
+        return from(cal);
+    }
+
+    // --- Today ---
+
+    private static final class Today {
+        final DateKey key;
+        final long startMillis;
+        final long endMillis;
+
+        Today(DateKey key, long startMillis, long endMillis) {
+            this.key = key;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+
+    private static volatile Today today;
+
+    /**
+     * Today's key, recomputed only when the clock leaves the cached day or after
+     * {@link #invalidateToday} (time zone or clock changes).
+     */
+    public static DateKey today() {
+        long now = System.currentTimeMillis();
+        Today cached = today;
+        if (cached != null && now >= cached.startMillis && now < cached.endMillis)
+            return cached.key;
+
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(now);
+        DateKey key = from(cal);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        long start = cal.getTimeInMillis();
+        cal.add(Calendar.DAY_OF_YEAR, 1);
+        today = new Today(key, start, cal.getTimeInMillis());
+        return key;
+    }
+
+    public static void invalidateToday() {
+        today = null;
+    }
+
+    // --- Parsing and formatting ---
+
+    /** Parses yyyy-MM-dd, throwing IllegalArgumentException on anything else. */
+    public static DateKey parse(CharSequence s) {
+        DateKey key = parseOrNull(s);
+        if (key == null)
+            throw new IllegalArgumentException("Not a yyyy-MM-dd date: " + s);
+        return key;
+    }
+
+    public static DateKey parseOrNull(CharSequence s) {
+        if (s == null || s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-')
+            return null;
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 7);
+        int day = digits(s, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month - 1))
+            return null;
+        return new DateKey(toEpochDay(year, month, day));
+    }
+
+    private static int digits(CharSequence s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /** Appends yyyy-MM-dd without allocating. */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append((char) ('0' + year / 1000 % 10))
+                .append((char) ('0' + year / 100 % 10))
+                .append((char) ('0' + year / 10 % 10))
+                .append((char) ('0' + year % 10))
+                .append('-')
+                .append((char) ('0' + (month + 1) / 10))
+                .append((char) ('0' + (month + 1) % 10))
+                .append('-')
+                .append((char) ('0' + dayOfMonth / 10))
+                .append((char) ('0' + dayOfMonth % 10));
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        if (text == null) {
+            text = appendTo(new StringBuilder(10)).toString();
+        }
+        return text;
+    }
+
+    // --- Accessors and arithmetic ---
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDayOfMonth() {
+        return dayOfMonth;
+    }
+
+    /** {@link Calendar#SUNDAY} through {@link Calendar#SATURDAY}. */
+    public int getDayOfWeek() {
+        // 1970-01-01 was a Thursday
+        return Math.floorMod(epochDay + 4, 7) + 1;
+    }
+
+    /** Upper-case English day name, as stored in {@link Habit#getFrequency()}. */
+    public String getDayName() {
+        return DAY_NAMES[getDayOfWeek() - 1];
+    }
+
+    public int lengthOfMonth() {
+        return lengthOfMonth(year, month);
+    }
+
+    public DateKey plusDays(int days) {
+        return days == 0 ? this : new DateKey(epochDay + days);
+    }
+
+    public DateKey withDayOfMonth(int day) {
+        return of(year, month, day);
+    }
+
+    public boolean isBefore(DateKey other) {
+        return epochDay < other.epochDay;
+    }
+
+    public boolean isAfter(DateKey other) {
+        return epochDay > other.epochDay;
+    }
+
+    /** Local midnight at the start of this day. */
+    public Calendar toCalendar() {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month, dayOfMonth);
+        return cal;
+    }
+
+    @Override
+    public int compareTo(DateKey other) {
+        return Integer.compare(epochDay, other.epochDay);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DateKey && ((DateKey) o).epochDay == epochDay;
+    }
+
+    @Override
+    public int hashCode() {
+        return epochDay;
+    }
+
+    // --- Calendar math ---
+
+    private static int toEpochDay(int year, int month, int day) {
+        // Days-from-civil with a 1-based month
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case Calendar.FEBRUARY:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case Calendar.APRIL:
+            case Calendar.JUNE:
+            case Calendar.SEPTEMBER:
+            case Calendar.NOVEMBER:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.resolutionapp.model;
+
+public class MonthSummary {
+    private final int year;
+    private final int month; // 0-based, as in java.util.Calendar
+    private final int daysInMonth;
+    // Indexed by day of month (1-based), slot 0 unused
+    private final int[] completedCounts;
+    private final int[] scheduledCounts;
+
+    public MonthSummary(int year, int month, int daysInMonth) {
+        this.year = year;
+        this.month = month;
+        this.daysInMonth = daysInMonth;
+        this.completedCounts = new int[daysInMonth + 1];
+        this.scheduledCounts = new int[daysInMonth + 1];
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDaysInMonth() {
+        return daysInMonth;
+    }
+
+    public int getCompletedCount(int dayOfMonth) {
+        return completedCounts[dayOfMonth];
+    }
+
+    public int getScheduledCount(int dayOfMonth) {
+        return scheduledCounts[dayOfMonth];
+    }
+
+    public void setCounts(int dayOfMonth, int completed, int scheduled) {
+        completedCounts[dayOfMonth] = completed;
+        scheduledCounts[dayOfMonth] = scheduled;
+    }
+}
@@ -32,6 +32,12 @@ public class ResolutionDay {
         this.completedHabitIds = completedHabitIds;
     }
 
+    // Parsed document date, null if malformed
+    @com.google.firebase.firestore.Exclude
+    public DateKey getDateKey() {
+        return DateKey.parseOrNull(date);
+    }
+
     // Helper to check if a specific habit was completed
     public boolean isHabitCompleted(String habitId) {
         return completedHabitIds != null && completedHabitIds.contains(habitId);
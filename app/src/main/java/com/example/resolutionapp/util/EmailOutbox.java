@@ -0,0 +1,250 @@
+package com.example.resolutionapp.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.worker.EmailOutboxWorker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Durable queue of report emails, keyed by (date, recipients) like
+ * {@link SmsOutbox}. Everything due is sent as one batch over a single SMTP
+ * session; failures stay queued with exponential backoff.
+ */
+public class EmailOutbox {
+
+    private static final String TAG = "EmailOutbox";
+    private static final String PREFS_NAME = "EmailOutbox";
+    private static final String WORK_NAME = "email_outbox_flush";
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_SENDING = "SENDING";
+    private static final String STATUS_SENT = "SENT";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BASE_BACKOFF_MS = TimeUnit.MINUTES.toMillis(2);
+    private static final long SEND_TIMEOUT_SECONDS = 120;
+    // No result after this long means the process died mid-batch. The entry is sent again: a
+    // duplicate report is better than a missing one
+    private static final long SENDING_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final int KEEP_DAYS = 30;
+
+    private static final Object lock = new Object();
+
+    public static void enqueue(Context context, DateKey date, String recipients, String subject, String body) {
+        String key = date + "|" + recipients.replace(" ", "");
+        synchronized (lock) {
+            SharedPreferences prefs = prefs(context);
+            JSONObject existing = read(prefs, key);
+            if (existing != null && !STATUS_PENDING.equals(existing.optString("status"))) {
+                Log.d(TAG, "Report " + key + " already " + existing.optString("status") + ", skipping");
+                return;
+            }
+
+            // A re-enqueued report keeps its retry state, so it waits out the backoff like any other
+            JSONObject entry = existing != null ? existing : new JSONObject();
+            put(entry, "key", key);
+            put(entry, "date", date.toString());
+            put(entry, "to", recipients);
+            put(entry, "subject", subject);
+            put(entry, "body", body);
+            put(entry, "status", STATUS_PENDING);
+            if (existing == null) {
+                put(entry, "attempts", 0);
+                put(entry, "nextAttemptAt", 0L);
+            }
+            put(entry, "updatedAt", System.currentTimeMillis());
+
+            SharedPreferences.Editor editor = prefs.edit();
+            write(editor, entry);
+            prune(prefs, editor);
+            editor.commit();
+        }
+        scheduleFlush(context, 0);
+    }
+
+    /**
+     * Sends all due emails in one batch. Returns the delay until the next retry,
+     * or -1 when nothing is waiting. Blocks, so only call from a worker thread.
+     * Entries are claimed as SENDING first and settled when the batch finishes,
+     * so a flush that gives up waiting never sends them a second time.
+     */
+    public static long flush(Context context) throws Exception {
+        SmtpConfig config = SmtpConfig.fromPrefs(context);
+        if (config == null) {
+            Log.d(TAG, "Email not configured, leaving queue as is");
+            return -1;
+        }
+
+        long now = System.currentTimeMillis();
+        long nextDue = -1;
+        List<JSONObject> due = new ArrayList<>();
+        synchronized (lock) {
+            SharedPreferences prefs = prefs(context);
+            SharedPreferences.Editor editor = prefs.edit();
+            for (JSONObject entry : readAll(prefs)) {
+                String status = entry.optString("status");
+                if (STATUS_SENDING.equals(status) && now - entry.optLong("updatedAt") > SENDING_TIMEOUT_MS) {
+                    // Counts as a failed attempt, so a report that keeps killing the process gives up eventually
+                    int attempts = entry.optInt("attempts") + 1;
+                    put(entry, "attempts", attempts);
+                    put(entry, "updatedAt", now);
+                    if (attempts >= MAX_ATTEMPTS) {
+                        Log.w(TAG, "No result for " + entry.optString("key") + ", giving up");
+                        put(entry, "status", STATUS_FAILED);
+                        write(editor, entry);
+                        continue;
+                    }
+                    Log.w(TAG, "No result for " + entry.optString("key") + ", sending again");
+                    put(entry, "status", STATUS_PENDING);
+                    put(entry, "nextAttemptAt", now);
+                    status = STATUS_PENDING;
+                } else if (STATUS_SENDING.equals(status)) {
+                    // Come back when it would time out, in case its process is gone and nothing else will
+                    long delay = SENDING_TIMEOUT_MS - (now - entry.optLong("updatedAt")) + 1;
+                    nextDue = nextDue < 0 ? delay : Math.min(nextDue, delay);
+                }
+                if (STATUS_PENDING.equals(status)) {
+                    long delay = entry.optLong("nextAttemptAt") - now;
+                    if (delay <= 0) {
+                        // Claim it before releasing the lock so a concurrent flush skips it
+                        put(entry, "status", STATUS_SENDING);
+                        put(entry, "updatedAt", now);
+                        write(editor, entry);
+                        due.add(entry);
+                    } else {
+                        nextDue = nextDue < 0 ? delay : Math.min(nextDue, delay);
+                    }
+                }
+            }
+            editor.commit();
+        }
+        if (due.isEmpty())
+            return nextDue;
+
+        List<EmailSender.Email> emails = new ArrayList<>();
+        for (JSONObject entry : due) {
+            emails.add(new EmailSender.Email(entry.optString("to"), entry.optString("subject"),
+                    entry.optString("body")));
+        }
+        Future<List<Boolean>> batch = EmailSender.getInstance().sendBatch(config, emails,
+                results -> onBatchSent(context, due, results));
+        try {
+            // Only keeps the worker alive while sending; the callback settles the entries either way
+            batch.get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            Log.w(TAG, "Batch of " + due.size() + " still sending, leaving it to finish");
+        }
+        return nextDue;
+    }
+
+    // Runs on the sender thread; failures go back to PENDING with backoff and get their own flush
+    private static void onBatchSent(Context context, List<JSONObject> due, List<Boolean> results) {
+        long now = System.currentTimeMillis();
+        long nextDue = -1;
+        synchronized (lock) {
+            SharedPreferences prefs = prefs(context);
+            SharedPreferences.Editor editor = prefs.edit();
+            for (int i = 0; i < due.size(); i++) {
+                JSONObject entry = read(prefs, due.get(i).optString("key"));
+                if (entry == null || !STATUS_SENDING.equals(entry.optString("status")))
+                    continue;
+                if (results.get(i)) {
+                    put(entry, "status", STATUS_SENT);
+                } else {
+                    int attempts = entry.optInt("attempts") + 1;
+                    put(entry, "attempts", attempts);
+                    if (attempts >= MAX_ATTEMPTS) {
+                        put(entry, "status", STATUS_FAILED);
+                    } else {
+                        long delay = BASE_BACKOFF_MS << (attempts - 1);
+                        put(entry, "status", STATUS_PENDING);
+                        put(entry, "nextAttemptAt", now + delay);
+                        nextDue = nextDue < 0 ? delay : Math.min(nextDue, delay);
+                    }
+                }
+                put(entry, "updatedAt", now);
+                write(editor, entry);
+            }
+            editor.commit();
+        }
+        Log.d(TAG, "Sent batch of " + due.size() + ", next retry in " + nextDue + "ms");
+        if (nextDue >= 0)
+            scheduleFlush(context, nextDue);
+    }
+
+    public static void scheduleFlush(Context context, long delayMs) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(EmailOutboxWorker.class)
+                .setInitialDelay(delayMs, TimeUnit.MILLISECONDS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BASE_BACKOFF_MS, TimeUnit.MILLISECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE,
+                request);
+    }
+
+    // --- Storage ---
+
+    private static void prune(SharedPreferences prefs, SharedPreferences.Editor editor) {
+        String oldest = DateKey.today().plusDays(-KEEP_DAYS).toString();
+        for (JSONObject entry : readAll(prefs)) {
+            if (entry.optString("date").compareTo(oldest) < 0)
+                editor.remove(entry.optString("key"));
+        }
+    }
+
+    private static JSONObject read(SharedPreferences prefs, String key) {
+        String json = prefs.getString(key, null);
+        if (json == null)
+            return null;
+        try {
+            return new JSONObject(json);
+        } catch (JSONException e) {
+            Log.e(TAG, "Dropping corrupt outbox entry " + key, e);
+            return null;
+        }
+    }
+
+    private static List<JSONObject> readAll(SharedPreferences prefs) {
+        List<JSONObject> entries = new ArrayList<>();
+        for (Map.Entry<String, ?> e : prefs.getAll().entrySet()) {
+            JSONObject entry = read(prefs, e.getKey());
+            if (entry != null)
+                entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static void write(SharedPreferences.Editor editor, JSONObject entry) {
+        editor.putString(entry.optString("key"), entry.toString());
+    }
+
+    private static void put(JSONObject entry, String name, Object value) {
+        try {
+            entry.put(name, value);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
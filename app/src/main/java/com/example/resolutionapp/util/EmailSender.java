@@ -0,0 +1,137 @@
+package com.example.resolutionapp.util;
+
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * Sends report emails over one pooled SMTP connection. All work runs on a
+ * single background thread, so the connection is reused across a batch and
+ * for a short while after it, then closed when idle.
+ */
+public class EmailSender {
+
+    private static final String TAG = "EmailSender";
+    private static final long IDLE_CLOSE_SECONDS = 60;
+
+    private static EmailSender instance;
+
+    public static class Email {
+        public final String to; // Comma separated
+        public final String subject;
+        public final String body;
+
+        public Email(String to, String subject, String body) {
+            this.to = to;
+            this.subject = subject;
+            this.body = body;
+        }
+    }
+
+    /** Called on the sender thread once the whole batch has been tried. */
+    public interface BatchCallback {
+        void onResult(List<Boolean> results);
+    }
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    // Only touched on the executor thread
+    private SmtpConfig connectedConfig;
+    private Session session;
+    private Transport transport;
+    private ScheduledFuture<?> idleClose;
+
+    private EmailSender() {
+    }
+
+    public static synchronized EmailSender getInstance() {
+        if (instance == null) {
+            instance = new EmailSender();
+        }
+        return instance;
+    }
+
+    /**
+     * Sends the emails in one SMTP session. The future holds one flag per email,
+     * in order, telling whether the server accepted it. The callback gets the
+     * same flags even if nobody is waiting on the future any more, and is
+     * called even if the batch fails part way.
+     */
+    public Future<List<Boolean>> sendBatch(SmtpConfig config, List<Email> emails, BatchCallback callback) {
+        return executor.submit(() -> {
+            if (idleClose != null)
+                idleClose.cancel(false);
+
+            List<Boolean> results = new ArrayList<>();
+            try {
+                for (Email email : emails) {
+                    results.add(sendOne(config, email));
+                }
+            } finally {
+                // Anything cut short (e.g. by a runtime exception) is reported as failed, so it is retried
+                if (results.size() < emails.size()) {
+                    closeTransport();
+                    while (results.size() < emails.size())
+                        results.add(false);
+                }
+                idleClose = executor.schedule(this::closeTransport, IDLE_CLOSE_SECONDS, TimeUnit.SECONDS);
+                callback.onResult(results);
+            }
+            return results;
+        });
+    }
+
+    private boolean sendOne(SmtpConfig config, Email email) {
+        try {
+            ensureConnected(config);
+            MimeMessage message = new MimeMessage(session);
+            message.setFrom(new InternetAddress(config.from));
+            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(email.to));
+            message.setSubject(email.subject, "UTF-8");
+            message.setText(email.body, "UTF-8");
+            message.saveChanges();
+            transport.sendMessage(message, message.getAllRecipients());
+            return true;
+        } catch (MessagingException e) {
+            Log.e(TAG, "Failed to send email to " + email.to, e);
+            if (transport != null && !transport.isConnected())
+                closeTransport(); // Reconnect for the next message
+            return false;
+        }
+    }
+
+    private void ensureConnected(SmtpConfig config) throws MessagingException {
+        if (transport != null && transport.isConnected() && config.equals(connectedConfig))
+            return;
+        closeTransport();
+
+        session = Session.getInstance(config.toProperties());
+        transport = session.getTransport(config.protocol());
+        transport.connect(config.host, config.port, config.username, config.password);
+        connectedConfig = config;
+        Log.d(TAG, "Connected to " + config.host + ":" + config.port);
+    }
+
+    private void closeTransport() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                Log.w(TAG, "Error closing SMTP connection", e);
+            }
+        }
+        transport = null;
+        session = null;
+        connectedConfig = null;
+    }
+}
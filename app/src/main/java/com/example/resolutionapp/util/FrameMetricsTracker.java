@@ -0,0 +1,68 @@
+package com.example.resolutionapp.util;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+/**
+ * Feeds a window's {@link FrameMetrics} into {@link FrameStatsStore}. The
+ * screen name is asked for per frame, so one window can attribute frames to
+ * whichever tab or animation is currently showing.
+ */
+public class FrameMetricsTracker {
+
+    public interface ScreenNameProvider {
+        String getScreenName();
+    }
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private static HandlerThread metricsThread;
+
+    private final Window window;
+    private final Window.OnFrameMetricsAvailableListener listener;
+
+    private FrameMetricsTracker(Window window, ScreenNameProvider screenNameProvider) {
+        this.window = window;
+        Display display = window.getWindowManager().getDefaultDisplay();
+        this.listener = (w, frameMetrics, dropCount) -> {
+            String screen = screenNameProvider.getScreenName();
+            if (screen != null) {
+                FrameStatsStore.getInstance().record(screen,
+                        frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION), frameIntervalNanos(display));
+            }
+        };
+    }
+
+    // Read per frame, since adaptive refresh displays switch rates while the window is up
+    private static long frameIntervalNanos(Display display) {
+        float refreshRate = display != null ? display.getRefreshRate() : 0;
+        if (refreshRate < 1)
+            refreshRate = DEFAULT_REFRESH_RATE;
+        return (long) (1_000_000_000L / refreshRate);
+    }
+
+    private static synchronized Handler getMetricsHandler() {
+        if (metricsThread == null) {
+            metricsThread = new HandlerThread("FrameMetrics");
+            metricsThread.start();
+        }
+        return new Handler(metricsThread.getLooper());
+    }
+
+    public static FrameMetricsTracker attach(Window window, ScreenNameProvider screenNameProvider) {
+        FrameMetricsTracker tracker = new FrameMetricsTracker(window, screenNameProvider);
+        window.addOnFrameMetricsAvailableListener(tracker.listener, getMetricsHandler());
+        return tracker;
+    }
+
+    public void detach() {
+        try {
+            window.removeOnFrameMetricsAvailableListener(listener);
+        } catch (IllegalArgumentException e) {
+            // Already removed
+        }
+    }
+}
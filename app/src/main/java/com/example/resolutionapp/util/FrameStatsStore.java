@@ -0,0 +1,147 @@
+package com.example.resolutionapp.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Process-wide, in-memory frame timing history. Each screen keeps the most
+ * recent {@link #CAPACITY} frame durations in a ring buffer plus lifetime
+ * slow/frozen counters. A frame is slow when it took longer than one refresh
+ * of its display, so 16.7 ms at 60 Hz but 8.3 ms at 120 Hz, and frozen past
+ * Android vitals' 700 ms.
+ */
+public class FrameStatsStore {
+
+    private static final int CAPACITY = 1024;
+    private static final long FROZEN_FRAME_NANOS = 700_000_000L;
+
+    private static final FrameStatsStore INSTANCE = new FrameStatsStore();
+
+    private final Map<String, ScreenBuffer> screens = new LinkedHashMap<>();
+
+    public static FrameStatsStore getInstance() {
+        return INSTANCE;
+    }
+
+    private static class ScreenBuffer {
+        final long[] durations = new long[CAPACITY];
+        int next;
+        int size;
+        long totalFrames;
+        long slowFrames;
+        long frozenFrames;
+    }
+
+    public static class ScreenStats {
+        public final String screen;
+        public final long totalFrames;
+        public final long slowFrames;
+        public final long frozenFrames;
+        public final double p50Ms;
+        public final double p95Ms;
+        public final double p99Ms;
+
+        ScreenStats(String screen, long totalFrames, long slowFrames, long frozenFrames, double p50Ms,
+                double p95Ms, double p99Ms) {
+            this.screen = screen;
+            this.totalFrames = totalFrames;
+            this.slowFrames = slowFrames;
+            this.frozenFrames = frozenFrames;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: %d frames, %d slow, %d frozen, p50 %.1fms, p95 %.1fms, p99 %.1fms",
+                    screen, totalFrames, slowFrames, frozenFrames, p50Ms, p95Ms, p99Ms);
+        }
+    }
+
+    public synchronized void record(String screen, long durationNanos, long frameIntervalNanos) {
+        ScreenBuffer buffer = screens.get(screen);
+        if (buffer == null) {
+            buffer = new ScreenBuffer();
+            screens.put(screen, buffer);
+        }
+        buffer.durations[buffer.next] = durationNanos;
+        buffer.next = (buffer.next + 1) % CAPACITY;
+        if (buffer.size < CAPACITY)
+            buffer.size++;
+        buffer.totalFrames++;
+        if (durationNanos > FROZEN_FRAME_NANOS) {
+            buffer.frozenFrames++;
+        } else if (durationNanos > frameIntervalNanos) {
+            buffer.slowFrames++;
+        }
+    }
+
+    /** Percentiles cover the frames still in each ring buffer. */
+    public synchronized List<ScreenStats> snapshot() {
+        List<ScreenStats> result = new ArrayList<>();
+        for (Map.Entry<String, ScreenBuffer> entry : screens.entrySet()) {
+            ScreenBuffer buffer = entry.getValue();
+            long[] sorted = Arrays.copyOf(buffer.durations, buffer.size);
+            Arrays.sort(sorted);
+            result.add(new ScreenStats(entry.getKey(), buffer.totalFrames, buffer.slowFrames,
+                    buffer.frozenFrames, percentileMs(sorted, 50), percentileMs(sorted, 95),
+                    percentileMs(sorted, 99)));
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        screens.clear();
+    }
+
+    private static double percentileMs(long[] sorted, int percentile) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Writes the summary followed by the raw buffered durations (ms) per screen.
+     * The buffers are copied under the lock and written after, so frames keep
+     * recording while the file is written.
+     */
+    public void exportTo(File file) throws IOException {
+        List<ScreenStats> stats = snapshot();
+        Map<String, long[]> durations = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Map.Entry<String, ScreenBuffer> entry : screens.entrySet()) {
+                ScreenBuffer buffer = entry.getValue();
+                // Oldest first
+                int start = buffer.size < CAPACITY ? 0 : buffer.next;
+                long[] copy = new long[buffer.size];
+                for (int i = 0; i < buffer.size; i++) {
+                    copy[i] = buffer.durations[(start + i) % CAPACITY];
+                }
+                durations.put(entry.getKey(), copy);
+            }
+        }
+
+        try (FileWriter writer = new FileWriter(file)) {
+            for (ScreenStats screenStats : stats) {
+                writer.write(screenStats.toString());
+                writer.write("\n");
+            }
+            writer.write("\nscreen,frame_ms\n");
+            for (Map.Entry<String, long[]> entry : durations.entrySet()) {
+                for (long duration : entry.getValue()) {
+                    writer.write(String.format(Locale.US, "%s,%.2f\n", entry.getKey(), duration / 1_000_000.0));
+                }
+            }
+        }
+    }
+}
@@ -12,15 +12,14 @@ import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import com.example.resolutionapp.DailyResolutionsActivity;
 import com.example.resolutionapp.R;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import com.example.resolutionapp.model.DateKey;
 
 public class NotificationHelper {
 
     private static final String CHANNEL_ID = "daily_resolutions_channel";
     private static final String CHANNEL_NAME = "Daily Resolutions";
     private static final String CHANNEL_DESC = "Reminders for daily resolutions";
+    public static final int WORK_NOTIFICATION_ID = 1002;
 
     public static void createNotificationChannel(Context context) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -36,20 +35,20 @@ public class NotificationHelper {
         }
     }
 
-    public static void showNotification(Context context, String title, String message) {
+    /** Returns false when the notification could not be posted. */
+    public static boolean showNotification(Context context, String title, String message) {
         // Check permission for Android 13+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
             if (ActivityCompat.checkSelfPermission(context,
                     android.Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
                 // Permission not granted, cannot show notification
-                return;
+                return false;
             }
         }
 
         // Create an intent to open DailyResolutionsActivity
         Intent intent = new Intent(context, DailyResolutionsActivity.class);
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-        intent.putExtra("DATE", today); // Pass today's date so it opens the correct view
+        intent.putExtra("DATE", DateKey.today().toString()); // Pass today's date so it opens the correct view
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
 
         PendingIntent pendingIntent = PendingIntent.getActivity(
@@ -68,5 +67,18 @@ public class NotificationHelper {
 
         NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
         notificationManager.notify(1001, builder.build());
+        return true;
+    }
+
+    /** Silent ongoing notification shown while expedited work runs on older devices. */
+    public static android.app.Notification buildWorkNotification(Context context) {
+        createNotificationChannel(context);
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle("Checking today's resolutions")
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .setSilent(true)
+                .setOngoing(true)
+                .build();
     }
 }
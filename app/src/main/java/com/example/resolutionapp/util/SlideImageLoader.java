@@ -0,0 +1,142 @@
+package com.example.resolutionapp.util;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decodes intro slide drawables off the main thread, downsampled to the size
+ * they are shown at, and keeps the results in a small LRU. Main thread only,
+ * apart from the decode itself.
+ */
+public class SlideImageLoader {
+
+    private static final String TAG = "SlideImageLoader";
+    // Share of the heap the cache may use
+    private static final int CACHE_FRACTION = 16;
+
+    private static SlideImageLoader instance;
+
+    private interface DecodeCallback {
+        void onDecoded(Bitmap bitmap);
+    }
+
+    private final Resources resources;
+    private final LruCache<String, Bitmap> cache;
+    private final Map<String, List<DecodeCallback>> pending = new HashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private SlideImageLoader(Context context) {
+        resources = context.getApplicationContext().getResources();
+        int maxKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / CACHE_FRACTION);
+        cache = new LruCache<String, Bitmap>(maxKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+    }
+
+    public static synchronized SlideImageLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new SlideImageLoader(context);
+        }
+        return instance;
+    }
+
+    private static String key(int resId, int width, int height) {
+        return resId + ":" + width + "x" + height;
+    }
+
+    public void load(int resId, int width, int height, ImageView target) {
+        String key = key(resId, width, height);
+        target.setTag(key);
+
+        Bitmap cached = cache.get(key);
+        if (cached != null) {
+            target.setImageBitmap(cached);
+            return;
+        }
+
+        target.setImageDrawable(null);
+        decodeAsync(resId, width, height, bitmap -> {
+            // The view may have been rebound to another slide meanwhile
+            if (key.equals(target.getTag()))
+                target.setImageBitmap(bitmap);
+        });
+    }
+
+    public void prefetch(int resId, int width, int height) {
+        if (cache.get(key(resId, width, height)) == null)
+            decodeAsync(resId, width, height, null);
+    }
+
+    public void clear() {
+        cache.evictAll();
+    }
+
+    private void decodeAsync(int resId, int width, int height, DecodeCallback callback) {
+        String key = key(resId, width, height);
+        List<DecodeCallback> waiters = pending.get(key);
+        if (waiters != null) {
+            if (callback != null)
+                waiters.add(callback);
+            return;
+        }
+
+        final List<DecodeCallback> newWaiters = new ArrayList<>();
+        if (callback != null)
+            newWaiters.add(callback);
+        pending.put(key, newWaiters);
+
+        executor.execute(() -> {
+            Bitmap bitmap = decodeSampled(resId, width, height);
+            mainHandler.post(() -> {
+                pending.remove(key);
+                if (bitmap == null)
+                    return;
+                cache.put(key, bitmap);
+                for (DecodeCallback waiter : newWaiters) {
+                    waiter.onDecoded(bitmap);
+                }
+            });
+        });
+    }
+
+    private Bitmap decodeSampled(int resId, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resId, options);
+
+        // Largest power of two that keeps both sides at or above the target size
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= reqWidth
+                && options.outHeight / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        // Don't upscale by screen density, the sample size already matches the view
+        options.inScaled = false;
+        try {
+            return BitmapFactory.decodeResource(resources, resId, options);
+        } catch (OutOfMemoryError e) {
+            Log.e(TAG, "Failed to decode slide image", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.resolutionapp.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.worker.SmsOutboxWorker;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Durable queue for accountability SMS. Each message is keyed by (date,
+ * recipient), so a retried worker can enqueue the same report again without
+ * it going out twice. Sends are tracked through the sent/delivered broadcasts
+ * and failed sends are retried with exponential backoff by {@link SmsOutboxWorker}.
+ */
+public class SmsOutbox {
+
+    private static final String TAG = "SmsOutbox";
+    private static final String PREFS_NAME = "SmsOutbox";
+    private static final String WORK_NAME = "sms_outbox_flush";
+    // Not an entry: the next id handed out for PendingIntent request codes
+    private static final String KEY_NEXT_ID = "next_request_id";
+    private static final int MAX_IDS = Integer.MAX_VALUE / SmsSender.MAX_PARTS;
+
+    public static final String STATUS_HELD = "HELD"; // Waiting for the weekly digest
+    public static final String STATUS_DIGESTED = "DIGESTED"; // Folded into a digest
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_DELIVERED = "DELIVERED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_BACKOFF_MS = TimeUnit.MINUTES.toMillis(1);
+    // No sent broadcast after this long (e.g. the process died) gets one retry, a second silence counts as
+    // sent: a lost report is worse than a duplicate, but resending without end could spam the recipient
+    private static final long SENDING_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final int KEEP_DAYS = 30;
+    private static final int DIGEST_DAYS = 7;
+
+    private static final Object lock = new Object();
+
+    /**
+     * Queues the day's report for the recipient. In weekly mode reports are held
+     * and sent as one message once their week is over.
+     */
+    public static void enqueue(Context context, DateKey date, String recipient, String body, boolean weekly) {
+        String phone = SmsSender.sanitize(recipient);
+        synchronized (lock) {
+            SharedPreferences prefs = prefs(context);
+            String key = key(date.toString(), phone);
+            JSONObject existing = read(prefs, key);
+            if (existing != null && !STATUS_PENDING.equals(existing.optString("status"))
+                    && !STATUS_HELD.equals(existing.optString("status"))) {
+                Log.d(TAG, "Report " + key + " already " + existing.optString("status") + ", skipping");
+                return;
+            }
+
+            JSONObject entry = newEntry(key, date, phone, body, weekly ? STATUS_HELD : STATUS_PENDING);
+            if (existing != null) {
+                // A re-enqueued report keeps its retry state, so it still waits out the backoff
+                keepRetryState(existing, entry);
+            }
+            SharedPreferences.Editor editor = prefs.edit();
+            write(editor, entry);
+            prune(prefs, editor);
+            editor.commit();
+
+            // The last day of a week closes it, so its digest goes out tonight rather than next week
+            if (weekly)
+                digestClosedWeeks(context, date);
+        }
+        scheduleFlush(context, 0);
+    }
+
+    /**
+     * Sends everything that is due. Returns the delay until the next retry, or
+     * -1 when nothing is waiting. Called from {@link SmsOutboxWorker}.
+     */
+    public static long flush(Context context) {
+        long now = System.currentTimeMillis();
+        long nextDue = -1;
+        List<JSONObject> due = new ArrayList<>();
+
+        synchronized (lock) {
+            // Catches weeks whose last day was never reported, or weekly mode switched off mid-week
+            digestClosedWeeks(context, DateKey.today().plusDays(-1));
+
+            SharedPreferences prefs = prefs(context);
+            SharedPreferences.Editor editor = prefs.edit();
+            int nextId = prefs.getInt(KEY_NEXT_ID, 0);
+            for (JSONObject entry : readAll(prefs)) {
+                String status = entry.optString("status");
+                if (STATUS_SENDING.equals(status)) {
+                    long age = now - entry.optLong("updatedAt");
+                    if (age <= SENDING_TIMEOUT_MS) {
+                        // Come back to check on it in case its broadcast never arrives
+                        long delay = SENDING_TIMEOUT_MS - age + 1;
+                        nextDue = nextDue < 0 ? delay : Math.min(nextDue, delay);
+                        continue;
+                    }
+                    if (entry.optBoolean("timedOut")) {
+                        Log.w(TAG, "No sent status for " + entry.optString("key") + " after a retry, assuming sent");
+                        put(entry, "status", STATUS_SENT);
+                        write(editor, entry);
+                        continue;
+                    }
+                    // Parts already confirmed stay in sentParts, so only the rest go out again
+                    Log.w(TAG, "No sent status for " + entry.optString("key") + ", retrying once");
+                    put(entry, "timedOut", true);
+                    put(entry, "nextAttemptAt", now);
+                    status = STATUS_PENDING;
+                }
+                if (STATUS_PENDING.equals(status)) {
+                    long nextAttemptAt = entry.optLong("nextAttemptAt");
+                    if (nextAttemptAt <= now) {
+                        if (!entry.has("requestCode")) {
+                            put(entry, "requestCode", nextId * SmsSender.MAX_PARTS);
+                            nextId = (nextId + 1) % MAX_IDS;
+                        }
+                        // Claim it before releasing the lock so a concurrent flush skips it
+                        put(entry, "status", STATUS_SENDING);
+                        put(entry, "updatedAt", now);
+                        entry.remove("parts");
+                        write(editor, entry);
+                        due.add(entry);
+                    } else {
+                        long delay = nextAttemptAt - now;
+                        nextDue = nextDue < 0 ? delay : Math.min(nextDue, delay);
+                    }
+                }
+            }
+            editor.putInt(KEY_NEXT_ID, nextId);
+            editor.commit();
+        }
+
+        for (JSONObject entry : due) {
+            String key = entry.optString("key");
+            // Parts that went out on an earlier attempt are not sent again
+            int parts = SmsSender.sendTracked(context, entry.optString("recipient"), entry.optString("body"), key,
+                    entry.optInt("requestCode"), sentParts(entry));
+            if (parts > 0) {
+                update(context, key, e -> {
+                    put(e, "parts", parts);
+                    markSentIfComplete(e);
+                });
+            } else {
+                long delay = onSendFailed(context, key, "not handed to the system");
+                if (delay >= 0)
+                    nextDue = nextDue < 0 ? delay : Math.min(nextDue, delay);
+            }
+        }
+        return nextDue;
+    }
+
+    /**
+     * Sent broadcast for one part; the message is sent once every part is.
+     * Sent parts are remembered across attempts, so a retry only resends the
+     * parts that failed.
+     */
+    static void onPartSent(Context context, String key, int part, boolean success, int errorCode) {
+        if (!success) {
+            long delay = onSendFailed(context, key, "error " + errorCode);
+            if (delay >= 0)
+                scheduleFlush(context, delay);
+            return;
+        }
+        update(context, key, entry -> {
+            String status = entry.optString("status");
+            // Still counts when another part has already failed the attempt
+            if (!STATUS_SENDING.equals(status) && !STATUS_PENDING.equals(status))
+                return;
+            Set<Integer> sent = sentParts(entry);
+            if (sent.add(part))
+                put(entry, "sentParts", new JSONArray(sent));
+            markSentIfComplete(entry);
+        });
+    }
+
+    // The part count is only known once the send call returns, which can race the broadcasts
+    private static void markSentIfComplete(JSONObject entry) {
+        if (STATUS_SENDING.equals(entry.optString("status")) && entry.has("parts")
+                && sentParts(entry).size() >= entry.optInt("parts"))
+            put(entry, "status", STATUS_SENT);
+    }
+
+    private static Set<Integer> sentParts(JSONObject entry) {
+        Set<Integer> sent = new TreeSet<>();
+        JSONArray parts = entry.optJSONArray("sentParts");
+        for (int i = 0; parts != null && i < parts.length(); i++) {
+            sent.add(parts.optInt(i));
+        }
+        return sent;
+    }
+
+    static void onDelivered(Context context, String key) {
+        update(context, key, entry -> {
+            String status = entry.optString("status");
+            if (STATUS_SENT.equals(status) || STATUS_SENDING.equals(status))
+                put(entry, "status", STATUS_DELIVERED);
+        });
+    }
+
+    // Returns the retry delay, or -1 once the attempts are used up
+    private static long onSendFailed(Context context, String key, String reason) {
+        final long[] delay = { -1 };
+        update(context, key, entry -> {
+            if (!STATUS_SENDING.equals(entry.optString("status")))
+                return; // Another part already reported the failure
+            int attempts = entry.optInt("attempts") + 1;
+            put(entry, "attempts", attempts);
+            put(entry, "lastError", reason);
+            if (attempts >= MAX_ATTEMPTS) {
+                put(entry, "status", STATUS_FAILED);
+            } else {
+                delay[0] = BASE_BACKOFF_MS << (attempts - 1);
+                put(entry, "status", STATUS_PENDING);
+                put(entry, "nextAttemptAt", System.currentTimeMillis() + delay[0]);
+            }
+        });
+        Log.w(TAG, "Send of " + key + " failed: " + reason);
+        return delay[0];
+    }
+
+    public static void scheduleFlush(Context context, long delayMs) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SmsOutboxWorker.class)
+                .setInitialDelay(delayMs, TimeUnit.MILLISECONDS)
+                .build();
+        // Chain behind a running flush rather than cancelling it mid-send
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE,
+                request);
+    }
+
+    /** One line per message, newest first, for the diagnostics page. */
+    public static String summary(Context context) {
+        List<JSONObject> entries;
+        synchronized (lock) {
+            entries = readAll(prefs(context));
+        }
+        List<String> lines = new ArrayList<>();
+        for (JSONObject entry : entries) {
+            lines.add(entry.optString("date") + " " + entry.optString("status")
+                    + (entry.optInt("attempts") > 0 ? " (" + entry.optInt("attempts") + " failed)" : ""));
+        }
+        Collections.sort(lines, Collections.reverseOrder());
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append("\n");
+        }
+        return text.toString();
+    }
+
+    // --- Weekly digest ---
+
+    private static boolean isLastDayOfWeek(DateKey date) {
+        return date.plusDays(1).getDayOfWeek() == Calendar.getInstance().getFirstDayOfWeek();
+    }
+
+    private static DateKey weekEnd(DateKey date) {
+        DateKey end = date;
+        while (!isLastDayOfWeek(end)) {
+            end = end.plusDays(1);
+        }
+        return end;
+    }
+
+    /** Folds held reports into one digest per recipient and week, for every week ending on or before the date. */
+    private static void digestClosedWeeks(Context context, DateKey through) {
+        SharedPreferences prefs = prefs(context);
+        Map<String, List<JSONObject>> weeks = new TreeMap<>();
+        for (JSONObject entry : readAll(prefs)) {
+            DateKey date = DateKey.parseOrNull(entry.optString("date"));
+            if (date == null || !STATUS_HELD.equals(entry.optString("status")))
+                continue;
+            DateKey end = weekEnd(date);
+            if (end.isAfter(through))
+                continue;
+            String digestKey = key("week-" + end, entry.optString("recipient"));
+            List<JSONObject> held = weeks.get(digestKey);
+            if (held == null) {
+                held = new ArrayList<>();
+                weeks.put(digestKey, held);
+            }
+            held.add(entry);
+        }
+        if (weeks.isEmpty())
+            return;
+
+        SharedPreferences.Editor editor = prefs.edit();
+        for (List<JSONObject> held : weeks.values()) {
+            JSONObject first = held.get(0);
+            writeDigest(prefs, editor, weekEnd(DateKey.parse(first.optString("date"))), first.optString("recipient"),
+                    held);
+        }
+        editor.commit();
+    }
+
+    private static void writeDigest(SharedPreferences prefs, SharedPreferences.Editor editor, DateKey end,
+            String phone, List<JSONObject> held) {
+        String digestKey = key("week-" + end, phone);
+        JSONObject digest = read(prefs, digestKey);
+        if (digest != null && !STATUS_PENDING.equals(digest.optString("status"))) {
+            // The digest is already out, so a late report (e.g. a catch-up) goes on its own
+            for (JSONObject entry : held) {
+                put(entry, "status", STATUS_PENDING);
+                write(editor, entry);
+            }
+            return;
+        }
+
+        // Rebuilt from every day of the week, so a late report joins a digest that hasn't gone out yet
+        DateKey start = end.plusDays(-(DIGEST_DAYS - 1));
+        StringBuilder body = new StringBuilder();
+        body.append("Weekly Report (").append(start).append(" to ").append(end).append(")\n");
+        for (int i = 0; i < DIGEST_DAYS; i++) {
+            JSONObject day = read(prefs, key(start.plusDays(i).toString(), phone));
+            if (day == null)
+                continue;
+            String status = day.optString("status");
+            if (!STATUS_HELD.equals(status) && !STATUS_DIGESTED.equals(status))
+                continue;
+            body.append("\n").append(day.optString("body"));
+            if (STATUS_HELD.equals(status)) {
+                put(day, "status", STATUS_DIGESTED);
+                write(editor, day);
+            }
+        }
+
+        JSONObject entry = newEntry(digestKey, end, phone, body.toString().trim(), STATUS_PENDING);
+        if (digest != null)
+            keepRetryState(digest, entry);
+        write(editor, entry);
+    }
+
+    // --- Storage ---
+
+    private interface Mutation {
+        void apply(JSONObject entry);
+    }
+
+    private static void update(Context context, String key, Mutation mutation) {
+        synchronized (lock) {
+            SharedPreferences prefs = prefs(context);
+            JSONObject entry = read(prefs, key);
+            if (entry == null)
+                return;
+            mutation.apply(entry);
+            put(entry, "updatedAt", System.currentTimeMillis());
+            SharedPreferences.Editor editor = prefs.edit();
+            write(editor, entry);
+            editor.commit();
+        }
+    }
+
+    private static String key(String date, String phone) {
+        return date + "|" + phone;
+    }
+
+    private static void keepRetryState(JSONObject from, JSONObject to) {
+        put(to, "attempts", from.optInt("attempts"));
+        if (from.optBoolean("timedOut"))
+            put(to, "timedOut", true);
+        put(to, "nextAttemptAt", from.optLong("nextAttemptAt"));
+        if (from.has("lastError"))
+            put(to, "lastError", from.optString("lastError"));
+        // Parts already out only match while the text is the same
+        if (from.has("sentParts") && from.optString("body").equals(to.optString("body")))
+            put(to, "sentParts", from.opt("sentParts"));
+    }
+
+    private static JSONObject newEntry(String key, DateKey date, String phone, String body, String status) {
+        JSONObject entry = new JSONObject();
+        put(entry, "key", key);
+        put(entry, "date", date.toString());
+        put(entry, "recipient", phone);
+        put(entry, "body", body);
+        put(entry, "status", status);
+        put(entry, "attempts", 0);
+        put(entry, "nextAttemptAt", 0L);
+        put(entry, "updatedAt", System.currentTimeMillis());
+        return entry;
+    }
+
+    private static void prune(SharedPreferences prefs, SharedPreferences.Editor editor) {
+        String oldest = DateKey.today().plusDays(-KEEP_DAYS).toString();
+        for (JSONObject entry : readAll(prefs)) {
+            if (entry.optString("date").compareTo(oldest) < 0)
+                editor.remove(entry.optString("key"));
+        }
+    }
+
+    private static JSONObject read(SharedPreferences prefs, String key) {
+        String json = prefs.getString(key, null);
+        if (json == null)
+            return null;
+        try {
+            return new JSONObject(json);
+        } catch (JSONException e) {
+            Log.e(TAG, "Dropping corrupt outbox entry " + key, e);
+            return null;
+        }
+    }
+
+    private static List<JSONObject> readAll(SharedPreferences prefs) {
+        List<JSONObject> entries = new ArrayList<>();
+        for (Map.Entry<String, ?> e : prefs.getAll().entrySet()) {
+            if (e.getKey().equals(KEY_NEXT_ID))
+                continue;
+            JSONObject entry = read(prefs, e.getKey());
+            if (entry != null)
+                entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static void write(SharedPreferences.Editor editor, JSONObject entry) {
+        editor.putString(entry.optString("key"), entry.toString());
+    }
+
+    private static void put(JSONObject entry, String name, Object value) {
+        try {
+            entry.put(name, value);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
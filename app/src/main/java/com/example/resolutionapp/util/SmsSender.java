@@ -2,34 +2,51 @@ package com.example.resolutionapp.util;
 
 import android.Manifest;
 import android.app.PendingIntent;
-import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.telephony.SmsManager;
 import android.util.Log;
-import android.widget.Toast;
 import androidx.core.content.ContextCompat;
 
 public class SmsSender {
     private static final String TAG = "SmsSender";
-    private static final String SENT = "SMS_SENT";
+
+    public static final String SENT = "SMS_SENT";
+    public static final String DELIVERED = "SMS_DELIVERED";
+    public static final String EXTRA_KEY = "outbox_key";
+    public static final String EXTRA_PART = "part";
+    // Request codes reserved per tracked message, one per part; a concatenated SMS has at most 255 parts
+    public static final int MAX_PARTS = 256;
 
     public static void sendSms(Context context, String phoneNumber, String message) {
+        sendTracked(context, phoneNumber, message, null, 0, java.util.Collections.<Integer>emptySet());
+    }
+
+    /**
+     * Sends the message and, when a tracking key is given, requests sent and
+     * delivered broadcasts per part to {@link SmsStatusReceiver}. Part i's
+     * PendingIntents use request code requestCode + i, so the caller hands out
+     * blocks of {@link #MAX_PARTS} that no other tracked message uses. Parts
+     * listed in skipParts are left out; a multipart message can't be resent in
+     * part, so the remaining parts then go out as separate texts. Returns the
+     * total number of parts, or 0 if nothing was sent.
+     */
+    public static int sendTracked(Context context, String phoneNumber, String message, String trackingKey,
+            int requestCode, java.util.Set<Integer> skipParts) {
         // 1. Sanitize Phone Number: Keep only digits and '+'
-        String sanitizedNumber = phoneNumber.replaceAll("[^\\d+]", "");
+        String sanitizedNumber = sanitize(phoneNumber);
 
         if (ContextCompat.checkSelfPermission(context,
                 Manifest.permission.SEND_SMS) != PackageManager.PERMISSION_GRANTED) {
             Log.e(TAG, "SEND_SMS permission not granted");
-            return;
+            return 0;
         }
 
         if (sanitizedNumber.isEmpty()) {
             Log.e(TAG, "Phone number is empty after sanitization");
-            return;
+            return 0;
         }
 
         try {
@@ -52,18 +69,56 @@ public class SmsSender {
             if (smsManager != null) {
                 // If message is long, it MUST be split
                 java.util.ArrayList<String> parts = smsManager.divideMessage(message);
+                java.util.ArrayList<PendingIntent> sentIntents = null;
+                java.util.ArrayList<PendingIntent> deliveredIntents = null;
+                if (trackingKey != null) {
+                    sentIntents = new java.util.ArrayList<>();
+                    deliveredIntents = new java.util.ArrayList<>();
+                    for (int i = 0; i < parts.size(); i++) {
+                        sentIntents.add(statusIntent(context, SENT, trackingKey, i, requestCode + i));
+                        deliveredIntents.add(statusIntent(context, DELIVERED, trackingKey, i, requestCode + i));
+                    }
+                }
 
-                if (parts.size() > 1) {
-                    smsManager.sendMultipartTextMessage(sanitizedNumber, null, parts, null, null);
+                if (!skipParts.isEmpty()) {
+                    for (int i = 0; i < parts.size(); i++) {
+                        if (skipParts.contains(i))
+                            continue;
+                        smsManager.sendTextMessage(sanitizedNumber, null, parts.get(i),
+                                sentIntents != null ? sentIntents.get(i) : null,
+                                deliveredIntents != null ? deliveredIntents.get(i) : null);
+                    }
+                } else if (parts.size() > 1) {
+                    smsManager.sendMultipartTextMessage(sanitizedNumber, null, parts, sentIntents, deliveredIntents);
                 } else {
-                    smsManager.sendTextMessage(sanitizedNumber, null, message, null, null);
+                    smsManager.sendTextMessage(sanitizedNumber, null, message,
+                            sentIntents != null ? sentIntents.get(0) : null,
+                            deliveredIntents != null ? deliveredIntents.get(0) : null);
                 }
                 Log.d(TAG, "SMS request sent to system.");
+                return parts.size();
             } else {
                 Log.e(TAG, "FAILED: SmsManager is still null.");
             }
         } catch (Exception e) {
             Log.e(TAG, "CRITICAL ERROR: " + e.getMessage());
         }
+        return 0;
+    }
+
+    public static String sanitize(String phoneNumber) {
+        return phoneNumber.replaceAll("[^\\d+]", "");
+    }
+
+    private static PendingIntent statusIntent(Context context, String action, String trackingKey, int part,
+            int requestCode) {
+        Intent intent = new Intent(action);
+        intent.setClass(context, SmsStatusReceiver.class);
+        intent.putExtra(EXTRA_KEY, trackingKey);
+        intent.putExtra(EXTRA_PART, part);
+        // Extras don't tell PendingIntents apart, so each part of each message needs its own request code;
+        // the action already separates sent from delivered
+        return PendingIntent.getBroadcast(context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
     }
 }
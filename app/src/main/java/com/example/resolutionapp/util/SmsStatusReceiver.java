@@ -0,0 +1,26 @@
+package com.example.resolutionapp.util;
+
+import android.app.Activity;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/** Receives the per-part sent and delivered broadcasts requested by {@link SmsSender}. */
+public class SmsStatusReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String key = intent.getStringExtra(SmsSender.EXTRA_KEY);
+        if (key == null)
+            return;
+
+        if (SmsSender.SENT.equals(intent.getAction())) {
+            int resultCode = getResultCode();
+            SmsOutbox.onPartSent(context, key, intent.getIntExtra(SmsSender.EXTRA_PART, 0),
+                    resultCode == Activity.RESULT_OK, resultCode);
+        } else if (SmsSender.DELIVERED.equals(intent.getAction())) {
+            // Not every carrier sends delivery reports, so SENT is the usual final state
+            SmsOutbox.onDelivered(context, key);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.resolutionapp.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import androidx.security.crypto.EncryptedSharedPreferences;
+import androidx.security.crypto.MasterKey;
+import com.example.resolutionapp.SettingsFragment;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Objects;
+import java.util.Properties;
+
+/** Connection settings for the email report channel. */
+public class SmtpConfig {
+
+    public static final int SECURITY_NONE = 0; // Plain SMTP, e.g. a local test server
+    public static final int SECURITY_STARTTLS = 1;
+    public static final int SECURITY_SSL = 2;
+
+    private static final String TAG = "SmtpConfig";
+    private static final int TIMEOUT_MS = 15_000;
+    // The password lives apart from the other settings, encrypted with a Keystore key
+    private static final String SECRET_PREFS_NAME = "SmtpSecrets";
+
+    // Opened once per process; building the Keystore key and initializing Tink is slow
+    private static volatile SharedPreferences secrets;
+
+    public final String host;
+    public final int port;
+    public final String username;
+    public final String password;
+    public final String from;
+    public final int security;
+
+    public SmtpConfig(String host, int port, String username, String password, String from, int security) {
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.from = from;
+        this.security = security;
+    }
+
+    /** The settings saved in {@link SettingsFragment}, or null if email is not set up. Not on the main thread. */
+    public static SmtpConfig fromPrefs(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(SettingsFragment.PREFS_NAME, Context.MODE_PRIVATE);
+        String sender = prefs.getString(SettingsFragment.KEY_SENDER_EMAIL, "");
+        String password = getPassword(context);
+        String host = prefs.getString(SettingsFragment.KEY_SMTP_HOST, "");
+        int port = prefs.getInt(SettingsFragment.KEY_SMTP_PORT, 587);
+        if (sender.isEmpty() || password.isEmpty() || host.isEmpty())
+            return null;
+        // Port 465 is implicit TLS, anything else upgrades with STARTTLS
+        return new SmtpConfig(host, port, sender, password, sender, port == 465 ? SECURITY_SSL : SECURITY_STARTTLS);
+    }
+
+    /** May open the encrypted store and migrate a legacy password, so not on the main thread. */
+    public static String getPassword(Context context) {
+        SharedPreferences secrets = secretPrefs(context);
+        if (secrets == null)
+            return "";
+        // Move a password saved in plain text by an older version
+        SharedPreferences prefs = context.getSharedPreferences(SettingsFragment.PREFS_NAME, Context.MODE_PRIVATE);
+        String legacy = prefs.getString(SettingsFragment.KEY_SENDER_PASSWORD, null);
+        if (legacy != null) {
+            secrets.edit().putString(SettingsFragment.KEY_SENDER_PASSWORD, legacy).commit();
+            prefs.edit().remove(SettingsFragment.KEY_SENDER_PASSWORD).apply();
+        }
+        return secrets.getString(SettingsFragment.KEY_SENDER_PASSWORD, "");
+    }
+
+    /** Returns false if the encrypted store is unavailable and nothing was saved. Not on the main thread. */
+    public static boolean savePassword(Context context, String password) {
+        SharedPreferences secrets = secretPrefs(context);
+        if (secrets == null)
+            return false;
+        context.getSharedPreferences(SettingsFragment.PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .remove(SettingsFragment.KEY_SENDER_PASSWORD).apply();
+        return secrets.edit().putString(SettingsFragment.KEY_SENDER_PASSWORD, password).commit();
+    }
+
+    // Null if the encrypted store can't be opened; not cached then, so the next call tries again
+    private static SharedPreferences secretPrefs(Context context) {
+        SharedPreferences prefs = secrets;
+        if (prefs != null)
+            return prefs;
+        synchronized (SmtpConfig.class) {
+            if (secrets == null) {
+                Context app = context.getApplicationContext();
+                try {
+                    MasterKey key = new MasterKey.Builder(app)
+                            .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
+                            .build();
+                    secrets = EncryptedSharedPreferences.create(app, SECRET_PREFS_NAME, key,
+                            EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+                            EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM);
+                } catch (GeneralSecurityException | IOException e) {
+                    Log.e(TAG, "Encrypted settings unavailable", e);
+                }
+            }
+            return secrets;
+        }
+    }
+
+    String protocol() {
+        return security == SECURITY_SSL ? "smtps" : "smtp";
+    }
+
+    Properties toProperties() {
+        String prefix = "mail." + protocol() + ".";
+        Properties props = new Properties();
+        props.put(prefix + "host", host);
+        props.put(prefix + "port", String.valueOf(port));
+        props.put(prefix + "auth", String.valueOf(username != null && !username.isEmpty()));
+        props.put(prefix + "connectiontimeout", String.valueOf(TIMEOUT_MS));
+        props.put(prefix + "timeout", String.valueOf(TIMEOUT_MS));
+        props.put(prefix + "writetimeout", String.valueOf(TIMEOUT_MS));
+        if (security == SECURITY_STARTTLS) {
+            props.put(prefix + "starttls.enable", "true");
+            props.put(prefix + "starttls.required", "true");
+        }
+        return props;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SmtpConfig))
+            return false;
+        SmtpConfig other = (SmtpConfig) o;
+        return port == other.port && security == other.security && Objects.equals(host, other.host)
+                && Objects.equals(username, other.username) && Objects.equals(password, other.password)
+                && Objects.equals(from, other.from);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port, username, from, security);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.resolutionapp.util;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.example.resolutionapp.R;
+
+/**
+ * Process-wide tap feedback. success.mp3 is decoded once into a SoundPool so
+ * playback is a low-latency trigger rather than a MediaPlayer per tap. The
+ * pool is loaded by the screen that plays it and kept until the app is in
+ * the background and memory is short.
+ */
+public class SoundFeedback implements ComponentCallbacks2 {
+
+    private static final String TAG = "SoundFeedback";
+    private static final int MAX_STREAMS = 3;
+
+    private static SoundFeedback instance;
+
+    private final Context appContext;
+    private SoundPool soundPool;
+    private int successSoundId;
+    private volatile boolean loaded;
+    // A tap that came in while decoding, played as soon as the sound is ready
+    private boolean playWhenLoaded;
+
+    private SoundFeedback(Context context) {
+        appContext = context.getApplicationContext();
+        appContext.registerComponentCallbacks(this);
+    }
+
+    public static synchronized SoundFeedback getInstance(Context context) {
+        if (instance == null) {
+            instance = new SoundFeedback(context);
+        }
+        return instance;
+    }
+
+    /** Starts decoding in the background; a no-op if the pool is already loaded. */
+    public synchronized void preload() {
+        if (soundPool != null)
+            return;
+
+        AudioAttributes attributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_ASSISTANCE_SONIFICATION)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build();
+        soundPool = new SoundPool.Builder()
+                .setMaxStreams(MAX_STREAMS)
+                .setAudioAttributes(attributes)
+                .build();
+        soundPool.setOnLoadCompleteListener((pool, sampleId, status) -> {
+            synchronized (this) {
+                if (pool != soundPool)
+                    return; // Released while decoding
+                loaded = status == 0;
+                if (!loaded)
+                    Log.e(TAG, "Failed to load success sound, status " + status);
+                else if (playWhenLoaded)
+                    pool.play(sampleId, 1f, 1f, 1, 0, 1f);
+                playWhenLoaded = false;
+            }
+        });
+        successSoundId = soundPool.load(appContext, R.raw.success, 1);
+    }
+
+    public synchronized void playSuccess() {
+        if (loaded) {
+            soundPool.play(successSoundId, 1f, 1f, 1, 0, 1f);
+            return;
+        }
+        // Not decoded yet, or released under memory pressure
+        playWhenLoaded = true;
+        preload();
+    }
+
+    public synchronized void release() {
+        if (soundPool != null) {
+            soundPool.release();
+            soundPool = null;
+        }
+        loaded = false;
+        playWhenLoaded = false;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        // UI_HIDDEN comes on every trip to the home screen; keep the pool until memory is actually short
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            release();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        release();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+}
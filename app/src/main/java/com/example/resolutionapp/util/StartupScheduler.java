@@ -0,0 +1,75 @@
+package com.example.resolutionapp.util;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import java.util.ArrayDeque;
+
+/**
+ * Runs non-critical startup work after the first frame, one task per main
+ * thread idle slot, and logs how long each startup phase took since process
+ * start so cold start can be tracked in logcat.
+ */
+public class StartupScheduler {
+
+    private static final String TAG = "Startup";
+
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private final ArrayDeque<String> taskNames = new ArrayDeque<>();
+    private boolean started;
+
+    public static void logPhase(String phase) {
+        long sinceStart = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+        Log.i(TAG, phase + " at +" + sinceStart + "ms");
+    }
+
+    public StartupScheduler add(String name, Runnable task) {
+        taskNames.add(name);
+        tasks.add(task);
+        return this;
+    }
+
+    /** Waits for the root view's first draw, then drains tasks on main thread idle. */
+    public void startAfterFirstDraw(View root) {
+        if (started)
+            return;
+        started = true;
+
+        root.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                root.getViewTreeObserver().removeOnPreDrawListener(this);
+                // Posted work runs once the frame being drawn has been handed off
+                root.post(() -> {
+                    logPhase("First frame");
+                    Looper.myQueue().addIdleHandler(idleHandler);
+                });
+                return true;
+            }
+        });
+    }
+
+    private final MessageQueue.IdleHandler idleHandler = () -> {
+        Runnable task = tasks.poll();
+        if (task == null)
+            return false;
+
+        String name = taskNames.poll();
+        long start = SystemClock.uptimeMillis();
+        try {
+            task.run();
+        } catch (Exception e) {
+            Log.e(TAG, "Deferred task failed: " + name, e);
+        }
+        Log.i(TAG, name + " took " + (SystemClock.uptimeMillis() - start) + "ms");
+        if (tasks.isEmpty()) {
+            logPhase("Deferred startup work done");
+            return false;
+        }
+        return true;
+    };
+}
@@ -0,0 +1,118 @@
+package com.example.resolutionapp.worker;
+
+import android.util.Log;
+import com.example.resolutionapp.data.FirestoreHelper;
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.model.Habit;
+import com.example.resolutionapp.model.ResolutionDay;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/** Today's habits and completions as seen by background workers. */
+public class DailyProgress {
+
+    private static final String TAG = "DailyProgress";
+
+    public interface ProgressCallback {
+        // progress is null when nothing could be read
+        void onProgress(DailyProgress progress);
+    }
+
+    public final List<Habit> habits;
+    public final List<String> completedIds;
+
+    private DailyProgress(List<Habit> habits, List<String> completedIds) {
+        this.habits = habits;
+        this.completedIds = completedIds;
+    }
+
+    /**
+     * Reads from the local Firestore cache first and only goes to the network
+     * when the cache has no habits, which is also how a cold or evicted cache
+     * answers, so a user without habits always costs a server read. Delivers null if there is no signed-in user or no
+     * data could be read. Callbacks run on the given executor; callers bound
+     * the overall wait.
+     */
+    public static void loadAsync(FirestoreHelper firestoreHelper, DateKey date, Executor executor,
+            ProgressCallback callback) {
+        readAsync(firestoreHelper, date, Source.CACHE, executor, cached -> {
+            if (cached != null) {
+                callback.onProgress(cached);
+            } else {
+                readAsync(firestoreHelper, date, Source.DEFAULT, executor, callback);
+            }
+        });
+    }
+
+    private static void readAsync(FirestoreHelper firestoreHelper, DateKey date, Source source, Executor executor,
+            ProgressCallback callback) {
+        Task<QuerySnapshot> habitsTask = firestoreHelper.getHabitsTask(source);
+        Task<DocumentSnapshot> resolutionsTask = firestoreHelper.getResolutionsForDateTask(date, source);
+        if (habitsTask == null || resolutionsTask == null) {
+            callback.onProgress(null);
+            return;
+        }
+
+        Tasks.whenAllComplete(habitsTask, resolutionsTask).addOnCompleteListener(executor, all -> {
+            if (!habitsTask.isSuccessful()) {
+                Log.d(TAG, "Could not read habits from " + source);
+                callback.onProgress(null);
+                return;
+            }
+            QuerySnapshot habitsSnapshot = habitsTask.getResult();
+            if (source == Source.CACHE && habitsSnapshot.isEmpty() && habitsSnapshot.getMetadata().isFromCache()) {
+                // A cache query with nothing cached succeeds with an empty snapshot, so treat it as a miss
+                callback.onProgress(null);
+                return;
+            }
+            List<Habit> habits = habitsSnapshot.toObjects(Habit.class);
+
+            List<String> completedIds = new ArrayList<>();
+            if (resolutionsTask.isSuccessful()) {
+                DocumentSnapshot snapshot = resolutionsTask.getResult();
+                ResolutionDay day = snapshot.exists() ? snapshot.toObject(ResolutionDay.class) : null;
+                if (day != null && day.getCompletedHabitIds() != null)
+                    completedIds = day.getCompletedHabitIds();
+            } else if (source != Source.CACHE) {
+                // A cache miss on the day's document just means nothing was ticked yet
+                callback.onProgress(null);
+                return;
+            }
+            callback.onProgress(new DailyProgress(habits, completedIds));
+        });
+    }
+
+    public static boolean isScheduledOn(Habit habit, DateKey day) {
+        if (habit.getFrequency() == null || habit.getFrequency().isEmpty())
+            return true; // Daily habit
+        return habit.getFrequency().contains(day.getDayName());
+    }
+
+    public int countScheduled(DateKey day) {
+        int count = 0;
+        for (Habit habit : habits) {
+            if (isScheduledOn(habit, day))
+                count++;
+        }
+        return count;
+    }
+
+    public boolean isCompleted(Habit habit) {
+        return completedIds.contains(habit.getId());
+    }
+
+    public int countRemaining(DateKey day) {
+        int remaining = 0;
+        for (Habit habit : habits) {
+            if (isScheduledOn(habit, day) && !completedIds.contains(habit.getId()))
+                remaining++;
+        }
+        return remaining;
+    }
+}
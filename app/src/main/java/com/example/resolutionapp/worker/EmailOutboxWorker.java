@@ -0,0 +1,34 @@
+package com.example.resolutionapp.worker;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.example.resolutionapp.util.EmailOutbox;
+
+/** Sends queued report emails in one batch once the network is available. */
+public class EmailOutboxWorker extends Worker {
+
+    private static final String TAG = "EmailOutboxWorker";
+
+    public EmailOutboxWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            long nextDelay = EmailOutbox.flush(getApplicationContext());
+            if (nextDelay >= 0) {
+                EmailOutbox.scheduleFlush(getApplicationContext(), nextDelay);
+            }
+            return Result.success();
+        } catch (Exception e) {
+            // Interrupted or the batch threw; anything claimed is settled or times out and is sent again
+            Log.e(TAG, "Email flush failed", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.resolutionapp.worker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.concurrent.futures.CallbackToFutureAdapter;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ListenableWorker;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.WorkerParameters;
+import com.example.resolutionapp.data.GeminiHelper;
+import com.example.resolutionapp.data.HabitDigest;
+import com.example.resolutionapp.model.DateKey;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.firebase.auth.FirebaseAuth;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asks Gemini for a short coaching insight on the day's habits and stores it,
+ * so the stats screen can show it the next morning without waiting. Runs
+ * nightly next to {@link NotificationWorker}, but only while charging or on
+ * an unmetered network.
+ */
+public class InsightWorker extends ListenableWorker {
+
+    private static final String TAG = "InsightWorker";
+    // Constraints can't be OR'ed, so there is one request per condition; whichever claims the day first wins
+    private static final String WORK_NAME_CHARGING = "ai_insight_charging";
+    private static final String WORK_NAME_UNMETERED = "ai_insight_unmetered";
+    private static final String PREFS_NAME = "AiInsight";
+    private static final String KEY_DATE = "date";
+    private static final String KEY_TEXT = "text";
+    private static final String KEY_CLAIMED_DATE = "claimed_date";
+    private static final String KEY_CLAIMED_AT = "claimed_at";
+
+    private static final int MAX_ATTEMPTS = 3;
+    // Constraints can hold the run past midnight; until noon it is still about the previous day
+    private static final int LATE_RUN_HOUR = 12;
+    // A claim left behind by a killed run stops blocking the other request after this long
+    private static final long CLAIM_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Object claimLock = new Object();
+
+    public InsightWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<Result> startWork() {
+        return CallbackToFutureAdapter.getFuture(completer -> {
+            DateKey date = reportDay();
+            if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+                Log.d(TAG, "No user logged in, skipping.");
+                completer.set(Result.success());
+                return TAG;
+            }
+            // Both requests can become eligible at once (charging on wifi); only one asks Gemini
+            if (!claim(getApplicationContext(), date)) {
+                Log.d(TAG, "Insight for " + date + " already stored or in progress");
+                completer.set(Result.success());
+                return TAG;
+            }
+            completer.addCancellationListener(() -> release(getApplicationContext(), date),
+                    getBackgroundExecutor());
+
+            // Judged from the next day, so the report day counts as finished. Firestore answers on the main
+            // thread, as does GeminiHelper
+            HabitDigest.getInstance().get(date.plusDays(1), digest -> {
+                if (digest == null) {
+                    release(getApplicationContext(), date);
+                    completer.set(retryOrFail());
+                    return;
+                }
+                if (HabitDigest.NO_HABITS.equals(digest)) {
+                    release(getApplicationContext(), date);
+                    completer.set(Result.success());
+                    return;
+                }
+                requestInsight(date, digest, completer);
+            });
+            return TAG + " " + date;
+        });
+    }
+
+    private void requestInsight(DateKey date, String digest, CallbackToFutureAdapter.Completer<Result> completer) {
+        String context = "You are a concise, encouraging habit coach. The user's habit history up to " + date
+                + ":\n" + digest;
+        String prompt = "In at most two sentences, give me one specific tip for tomorrow based on how my "
+                + "habits have been going.";
+
+        GeminiHelper gemini = new GeminiHelper(getApplicationContext());
+        GeminiHelper.GeminiCallback callback = new GeminiHelper.GeminiCallback() {
+            @Override
+            public void onSuccess(String responseText) {
+                prefs(getApplicationContext()).edit()
+                        .putString(KEY_DATE, date.toString())
+                        .putString(KEY_TEXT, responseText.trim())
+                        .apply();
+                Log.d(TAG, "Stored insight for " + date);
+                completer.set(Result.success());
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.w(TAG, "Insight request failed: " + error);
+                release(getApplicationContext(), date);
+                completer.set(retryOrFail());
+            }
+        };
+        completer.addCancellationListener(gemini::cancel, getBackgroundExecutor());
+        gemini.chatWithGemini(Collections.emptyList(), prompt, context, callback);
+    }
+
+    private Result retryOrFail() {
+        return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+    }
+
+    private DateKey reportDay() {
+        DateKey today = DateKey.today();
+        return Calendar.getInstance().get(Calendar.HOUR_OF_DAY) < LATE_RUN_HOUR ? today.plusDays(-1) : today;
+    }
+
+    private static boolean claim(Context context, DateKey date) {
+        synchronized (claimLock) {
+            SharedPreferences prefs = prefs(context);
+            String day = date.toString();
+            if (day.equals(prefs.getString(KEY_DATE, null)))
+                return false;
+            if (day.equals(prefs.getString(KEY_CLAIMED_DATE, null))
+                    && System.currentTimeMillis() - prefs.getLong(KEY_CLAIMED_AT, 0) < CLAIM_TIMEOUT_MS)
+                return false;
+            return prefs.edit()
+                    .putString(KEY_CLAIMED_DATE, day)
+                    .putLong(KEY_CLAIMED_AT, System.currentTimeMillis())
+                    .commit();
+        }
+    }
+
+    // Lets a retry, or the other request, have another go
+    private static void release(Context context, DateKey date) {
+        synchronized (claimLock) {
+            SharedPreferences prefs = prefs(context);
+            if (date.toString().equals(prefs.getString(KEY_CLAIMED_DATE, null)))
+                prefs.edit().remove(KEY_CLAIMED_DATE).remove(KEY_CLAIMED_AT).commit();
+        }
+    }
+
+    /** The latest insight if it is about yesterday or today, otherwise null. Cheap enough for the main thread. */
+    public static String getInsight(Context context) {
+        SharedPreferences prefs = prefs(context);
+        DateKey date = DateKey.parseOrNull(prefs.getString(KEY_DATE, null));
+        if (date == null || date.isBefore(DateKey.today().plusDays(-1)))
+            return null;
+        return prefs.getString(KEY_TEXT, null);
+    }
+
+    /** Schedules the nightly insight; the delay lines its first run up with the daily report. */
+    public static void schedule(Context context, long initialDelayMs) {
+        Constraints charging = new Constraints.Builder()
+                .setRequiresCharging(true)
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        Constraints unmetered = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .build();
+
+        WorkManager workManager = WorkManager.getInstance(context);
+        workManager.enqueueUniquePeriodicWork(WORK_NAME_CHARGING, ExistingPeriodicWorkPolicy.UPDATE,
+                request(charging, initialDelayMs));
+        workManager.enqueueUniquePeriodicWork(WORK_NAME_UNMETERED, ExistingPeriodicWorkPolicy.UPDATE,
+                request(unmetered, initialDelayMs));
+    }
+
+    private static PeriodicWorkRequest request(Constraints constraints, long initialDelayMs) {
+        return new PeriodicWorkRequest.Builder(InsightWorker.class, 24, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setInitialDelay(initialDelayMs, TimeUnit.MILLISECONDS)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -1,28 +1,53 @@
 package com.example.resolutionapp.worker;
 
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import androidx.annotation.NonNull;
-import androidx.work.Worker;
+import androidx.concurrent.futures.CallbackToFutureAdapter;
+import androidx.work.BackoffPolicy;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.ListenableWorker;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.WorkManager;
 import androidx.work.WorkerParameters;
 import com.example.resolutionapp.data.FirestoreHelper;
+import com.example.resolutionapp.model.DateKey;
 import com.example.resolutionapp.model.Habit;
-import com.example.resolutionapp.model.ResolutionDay;
+import com.example.resolutionapp.util.EmailOutbox;
 import com.example.resolutionapp.util.NotificationHelper;
-import com.google.android.gms.tasks.Task;
-import com.google.android.gms.tasks.Tasks;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.QuerySnapshot;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.ExecutionException;
-
-public class NotificationWorker extends Worker {
+import com.example.resolutionapp.util.SmsOutbox;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.firebase.auth.FirebaseAuth;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly check and accountability report. Runs asynchronously on Firestore's
+ * offline cache so the report still goes out at 23:59 without connectivity;
+ * the network is only consulted when nothing is cached.
+ */
+public class NotificationWorker extends ListenableWorker {
 
     private static final String TAG = "NotificationWorker";
+    public static final String KEY_DATE = "DATE";
+    private static final String CATCH_UP_WORK_NAME = "daily_resolution_catch_up";
+    private static final String KEY_LAST_REPORT_DATE = "LAST_REPORT_DATE";
+
+    // Longest we wait for data before giving up on this attempt
+    private static final long LOAD_TIMEOUT_MS = 20_000;
+    public static final long BACKOFF_DELAY_MINUTES = 5;
+    // A run deferred past midnight still reports on the day it was meant for
+    private static final int LATE_RUN_HOUR = 4;
+
     private final FirestoreHelper firestoreHelper;
+    private final Handler timeoutHandler = new Handler(Looper.getMainLooper());
 
     public NotificationWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
@@ -31,118 +56,163 @@ public class NotificationWorker extends Worker {
 
     @NonNull
     @Override
-    public Result doWork() {
-        Log.d(TAG, "Starting background check for resolutions...");
-
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-
-        try {
-            // 1. Get Habits (Synchronously)
-            Task<QuerySnapshot> habitsTask = firestoreHelper.getHabitsTask();
-            if (habitsTask == null) {
-                // User not logged in?
+    public ListenableFuture<Result> startWork() {
+        return CallbackToFutureAdapter.getFuture(completer -> {
+            Log.d(TAG, "Starting background check for resolutions...");
+            final DateKey date = reportDay();
+            if (FirebaseAuth.getInstance().getCurrentUser() == null) {
                 Log.d(TAG, "No user logged in, skipping.");
-                return Result.success();
+                completer.set(finish(date));
+                return "NotificationWorker " + date;
             }
-            QuerySnapshot habitsSnapshot = Tasks.await(habitsTask);
-            List<Habit> habits = habitsSnapshot.toObjects(Habit.class);
+            final AtomicBoolean finished = new AtomicBoolean();
 
-            if (habits.isEmpty()) {
-                Log.d(TAG, "No habits found to check.");
-                return Result.success();
-            }
-
-            // 2. Get Today's Resolutions (Synchronously)
-            Task<DocumentSnapshot> resolutionsTask = firestoreHelper.getResolutionsForDateTask(today);
-            DocumentSnapshot resolutionSnapshot = Tasks.await(resolutionsTask);
-
-            int completedCount = 0;
-            if (resolutionSnapshot.exists()) {
-                ResolutionDay day = resolutionSnapshot.toObject(ResolutionDay.class);
-                if (day != null && day.getCompletedHabitIds() != null) {
-                    completedCount = day.getCompletedHabitIds().size();
+            Runnable timeout = () -> {
+                if (finished.compareAndSet(false, true)) {
+                    Log.w(TAG, "Timed out reading data for " + date + ", will retry");
+                    completer.set(Result.retry());
                 }
-            }
+            };
+            timeoutHandler.postDelayed(timeout, LOAD_TIMEOUT_MS);
+
+            DailyProgress.loadAsync(firestoreHelper, date, getBackgroundExecutor(), progress -> {
+                if (!finished.compareAndSet(false, true))
+                    return;
+                timeoutHandler.removeCallbacks(timeout);
+                try {
+                    completer.set(report(progress, date));
+                } catch (Exception e) {
+                    completer.setException(e);
+                }
+            });
 
-            // 3. Compare (Filter habits first)
-            int totalHabits = 0;
-            for (Habit h : habits) {
-                if (isHabitScheduledForToday(h))
-                    totalHabits++;
-            }
+            completer.addCancellationListener(() -> timeoutHandler.removeCallbacks(timeout),
+                    getBackgroundExecutor());
+            return "NotificationWorker " + date;
+        });
+    }
 
-            int remaining = totalHabits - completedCount;
-            // Prevent negative if data is inconsistent
-            if (remaining < 0)
-                remaining = 0;
+    // Required on API < 31 when this runs as expedited work
+    @NonNull
+    @Override
+    public ListenableFuture<ForegroundInfo> getForegroundInfoAsync() {
+        return CallbackToFutureAdapter.getFuture(completer -> {
+            completer.set(new ForegroundInfo(NotificationHelper.WORK_NOTIFICATION_ID,
+                    NotificationHelper.buildWorkNotification(getApplicationContext())));
+            return "NotificationWorker foreground info";
+        });
+    }
 
-            Log.d(TAG, "Total: " + totalHabits + ", Completed: " + completedCount + ", Remaining: " + remaining);
+    private Result report(DailyProgress progress, DateKey date) {
+        if (progress == null) {
+            // Nothing cached and no network; backoff retries until data shows up
+            Log.d(TAG, "No data available for " + date + ", will retry");
+            return Result.retry();
+        }
 
-            if (remaining > 0) {
-                // Send Notification
-                String message = "You have " + remaining + " resolutions remaining for today. Finish them now!";
-                NotificationHelper.showNotification(getApplicationContext(), "Keep going!", message);
-            }
+        if (progress.habits.isEmpty()) {
+            Log.d(TAG, "No habits found to check.");
+            return finish(date);
+        }
 
-            // --- Accountability SMS Report ---
-            sendAccountabilityReport(habits, resolutionSnapshot, today);
+        int totalHabits = progress.countScheduled(date);
+        int remaining = progress.countRemaining(date);
+        Log.d(TAG, "Total: " + totalHabits + ", Remaining: " + remaining);
+
+        boolean posted = false;
+        if (remaining > 0) {
+            // Send Notification, worded for the day reported on (a catch-up run covers yesterday)
+            String message = date.equals(DateKey.today())
+                    ? "You have " + remaining + " resolutions remaining for today. Finish them now!"
+                    : "You left " + remaining + " resolutions unfinished on " + date + ". Today's a fresh start!";
+            posted = NotificationHelper.showNotification(getApplicationContext(), "Keep going!", message);
+        }
+        ReminderStats.recordWakeup(getApplicationContext(), posted);
 
-            return Result.success();
+        // --- Accountability SMS Report ---
+        sendAccountabilityReport(progress, date);
+        return finish(date);
+    }
 
-        } catch (ExecutionException | InterruptedException e) {
-            Log.e(TAG, "Error fetching data in worker", e);
-            return Result.retry();
+    // Every successful outcome counts as reported, so catchUpIfMissed doesn't keep re-running it
+    private Result finish(DateKey date) {
+        prefs(getApplicationContext()).edit().putString(KEY_LAST_REPORT_DATE, date.toString()).apply();
+        return Result.success();
+    }
+
+    private DateKey reportDay() {
+        String input = getInputData().getString(KEY_DATE);
+        if (input != null) {
+            DateKey date = DateKey.parseOrNull(input);
+            if (date != null)
+                return date;
+            Log.w(TAG, "Bad date input " + input + ", using today");
+        } else if (Calendar.getInstance().get(Calendar.HOUR_OF_DAY) < LATE_RUN_HOUR) {
+            return DateKey.today().plusDays(-1);
         }
+        return DateKey.today();
     }
 
-    private void sendAccountabilityReport(List<Habit> habits, DocumentSnapshot resolutionSnapshot, String date) {
-        android.content.SharedPreferences prefs = getApplicationContext().getSharedPreferences(
+    private void sendAccountabilityReport(DailyProgress progress, DateKey date) {
+        SharedPreferences prefs = getApplicationContext().getSharedPreferences(
                 com.example.resolutionapp.SettingsFragment.PREFS_NAME, android.content.Context.MODE_PRIVATE);
 
         String recipientPhone = prefs.getString(com.example.resolutionapp.SettingsFragment.KEY_RECIPIENT_PHONE, "");
+        String recipientEmails = prefs.getString(com.example.resolutionapp.SettingsFragment.KEY_RECIPIENT_EMAILS, "");
 
-        if (recipientPhone.isEmpty()) {
-            Log.d(TAG, "Recipient phone number not set in Settings. Skipping SMS.");
+        if (recipientPhone.isEmpty() && recipientEmails.isEmpty()) {
+            Log.d(TAG, "No report recipients set in Settings. Skipping report.");
             return;
         }
 
-        List<String> completedIds = new java.util.ArrayList<>();
-        if (resolutionSnapshot.exists()) {
-            ResolutionDay day = resolutionSnapshot.toObject(ResolutionDay.class);
-            if (day != null && day.getCompletedHabitIds() != null) {
-                completedIds = day.getCompletedHabitIds();
-            }
-        }
-
         StringBuilder body = new StringBuilder();
         body.append("Daily Report (").append(date).append("):\n");
 
-        for (Habit habit : habits) {
-            if (!isHabitScheduledForToday(habit))
+        for (Habit habit : progress.habits) {
+            if (!DailyProgress.isScheduledOn(habit, date))
                 continue;
 
-            boolean isComplete = completedIds.contains(habit.getId());
-            body.append(isComplete ? "✓ " : "✗ ");
+            body.append(progress.isCompleted(habit) ? "✓ " : "✗ ");
             body.append(habit.getTitle()).append("\n");
         }
 
-        try {
-            com.example.resolutionapp.util.SmsSender.sendSms(getApplicationContext(), recipientPhone, body.toString());
-            Log.d(TAG, "Accountability SMS sent successfully.");
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to send SMS", e);
+        // Both outboxes dedupe per (date, recipient), so a retried run can't double-send
+        if (!recipientPhone.isEmpty()) {
+            boolean weekly = prefs.getBoolean(com.example.resolutionapp.SettingsFragment.KEY_SMS_WEEKLY_DIGEST,
+                    false);
+            SmsOutbox.enqueue(getApplicationContext(), date, recipientPhone, body.toString(), weekly);
+            Log.d(TAG, "Accountability SMS queued.");
+        }
+        if (!recipientEmails.isEmpty()) {
+            EmailOutbox.enqueue(getApplicationContext(), date, recipientEmails,
+                    "Resolution Report " + date, body.toString());
+            Log.d(TAG, "Accountability email queued.");
         }
     }
 
-    private boolean isHabitScheduledForToday(Habit habit) {
-        if (habit.getFrequency() == null || habit.getFrequency().isEmpty())
-            return true; // Daily habit
+    /**
+     * Sends yesterday's report right away, as expedited work, if the nightly run
+     * never completed for it (e.g. the device was off at 23:59).
+     */
+    public static void catchUpIfMissed(Context context) {
+        String lastReport = prefs(context).getString(KEY_LAST_REPORT_DATE, null);
+        if (lastReport == null)
+            return; // Never reported yet, nothing to catch up on
+
+        DateKey date = DateKey.today().plusDays(-1);
+        DateKey last = DateKey.parseOrNull(lastReport);
+        if (last != null && !last.isBefore(date))
+            return;
 
-        String[] days = { "SUNDAY", "MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY" };
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        int dayIndex = cal.get(java.util.Calendar.DAY_OF_WEEK) - 1; // 0 for Sunday
-        String todayString = days[dayIndex];
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(NotificationWorker.class)
+                .setInputData(new Data.Builder().putString(KEY_DATE, date.toString()).build())
+                .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_MINUTES, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(CATCH_UP_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
 
-        return habit.getFrequency().contains(todayString);
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences("PREFS", Context.MODE_PRIVATE);
     }
 }
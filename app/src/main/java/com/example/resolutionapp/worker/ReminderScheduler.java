@@ -0,0 +1,73 @@
+package com.example.resolutionapp.worker;
+
+import android.content.Context;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans daytime reminders as a chain of one-time work, each run scheduling the
+ * next. The last check of the day is left to the nightly {@link NotificationWorker},
+ * so together they wake the device a few times a day instead of every 3 hours.
+ */
+public class ReminderScheduler {
+
+    public static final String WORK_NAME = "resolution_reminder";
+    // Replaced by this scheduler, cancelled on upgrade
+    public static final String LEGACY_WORK_NAME = "periodic_reminder_check";
+
+    // Hours of the day a reminder may fire, the nightly check runs at 23:59
+    private static final int[] SLOT_HOURS = { 13, 18, 21 };
+
+    /**
+     * Starts the chain at the next slot unless a link is already pending. Safe
+     * to call on every launch, which re-arms a chain that was dropped (e.g. by
+     * a force-stop).
+     */
+    public static void schedule(Context context) {
+        enqueue(context, nextSlot(Calendar.getInstance(), false), ExistingWorkPolicy.KEEP);
+    }
+
+    /**
+     * Schedules the following reminder. When today's habits are all done there is
+     * nothing to nag about, so the chain sleeps until tomorrow's first slot.
+     */
+    public static void scheduleNext(Context context, boolean todayDone) {
+        // Called from the running link, so append rather than replace the work it runs under
+        enqueue(context, nextSlot(Calendar.getInstance(), todayDone), ExistingWorkPolicy.APPEND_OR_REPLACE);
+    }
+
+    public static void cancelLegacy(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(LEGACY_WORK_NAME);
+    }
+
+    static Calendar nextSlot(Calendar now, boolean skipToday) {
+        Calendar slot = (Calendar) now.clone();
+        slot.set(Calendar.MINUTE, 0);
+        slot.set(Calendar.SECOND, 0);
+        slot.set(Calendar.MILLISECOND, 0);
+
+        if (!skipToday) {
+            for (int hour : SLOT_HOURS) {
+                slot.set(Calendar.HOUR_OF_DAY, hour);
+                if (slot.after(now))
+                    return slot;
+            }
+        }
+        slot.add(Calendar.DAY_OF_YEAR, 1);
+        slot.set(Calendar.HOUR_OF_DAY, SLOT_HOURS[0]);
+        return slot;
+    }
+
+    private static void enqueue(Context context, Calendar slot, ExistingWorkPolicy policy) {
+        long delay = Math.max(0, slot.getTimeInMillis() - System.currentTimeMillis());
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ReminderWorker.class)
+                .setInitialDelay(delay, TimeUnit.MILLISECONDS)
+                .addTag(WORK_NAME)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, policy, request);
+    }
+}
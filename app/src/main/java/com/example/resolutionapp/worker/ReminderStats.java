@@ -0,0 +1,71 @@
+package com.example.resolutionapp.worker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.example.resolutionapp.model.DateKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-day counters of background wakeups and notifications actually posted,
+ * so the cost of the reminder schedule can be checked from the diagnostics page.
+ */
+public class ReminderStats {
+
+    private static final String PREFS_NAME = "ReminderStats";
+    private static final String KEY_WAKEUPS = "wakeups_";
+    private static final String KEY_POSTED = "posted_";
+    private static final int KEEP_DAYS = 14;
+
+    public static synchronized void recordWakeup(Context context, boolean posted) {
+        SharedPreferences prefs = prefs(context);
+        String today = DateKey.today().toString();
+        SharedPreferences.Editor editor = prefs.edit()
+                .putInt(KEY_WAKEUPS + today, prefs.getInt(KEY_WAKEUPS + today, 0) + 1);
+        if (posted) {
+            editor.putInt(KEY_POSTED + today, prefs.getInt(KEY_POSTED + today, 0) + 1);
+        }
+        prune(prefs, editor);
+        editor.apply();
+    }
+
+    /** One line per recorded day, newest first. */
+    public static String summary(Context context) {
+        SharedPreferences prefs = prefs(context);
+        List<String> dates = new ArrayList<>();
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(KEY_WAKEUPS))
+                dates.add(key.substring(KEY_WAKEUPS.length()));
+        }
+        Collections.sort(dates, Collections.reverseOrder());
+
+        StringBuilder text = new StringBuilder();
+        for (String date : dates) {
+            text.append(date).append(": ")
+                    .append(prefs.getInt(KEY_WAKEUPS + date, 0)).append(" wakeups, ")
+                    .append(prefs.getInt(KEY_POSTED + date, 0)).append(" posted\n");
+        }
+        return text.toString();
+    }
+
+    public static void clear(Context context) {
+        prefs(context).edit().clear().apply();
+    }
+
+    // Keys embed yyyy-MM-dd, so a plain string compare finds the stale ones
+    private static void prune(SharedPreferences prefs, SharedPreferences.Editor editor) {
+        String oldest = DateKey.today().plusDays(-KEEP_DAYS).toString();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            String key = entry.getKey();
+            int sep = key.indexOf('_');
+            if (sep >= 0 && key.substring(sep + 1).compareTo(oldest) < 0)
+                editor.remove(key);
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
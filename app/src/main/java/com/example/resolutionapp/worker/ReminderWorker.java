@@ -1,12 +1,26 @@
 package com.example.resolutionapp.worker;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import androidx.annotation.NonNull;
-import androidx.work.Worker;
+import androidx.concurrent.futures.CallbackToFutureAdapter;
+import androidx.work.ListenableWorker;
 import androidx.work.WorkerParameters;
+import com.example.resolutionapp.data.FirestoreHelper;
+import com.example.resolutionapp.model.DateKey;
 import com.example.resolutionapp.util.NotificationHelper;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class ReminderWorker extends Worker {
+public class ReminderWorker extends ListenableWorker {
+
+    private static final String TAG = "ReminderWorker";
+    // No data by then counts as unknown: no nudge, and the chain moves on
+    private static final long LOAD_TIMEOUT_MS = 20_000;
+
+    private final Handler timeoutHandler = new Handler(Looper.getMainLooper());
 
     public ReminderWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
@@ -14,11 +28,50 @@ public class ReminderWorker extends Worker {
 
     @NonNull
     @Override
-    public Result doWork() {
-        NotificationHelper.showNotification(
-                getApplicationContext(),
-                "Reminder",
-                "Hey take a look 👀");
+    public ListenableFuture<Result> startWork() {
+        return CallbackToFutureAdapter.getFuture(completer -> {
+            DateKey today = DateKey.today();
+            AtomicBoolean finished = new AtomicBoolean();
+
+            Runnable timeout = () -> {
+                if (finished.compareAndSet(false, true)) {
+                    Log.w(TAG, "Timed out reading progress");
+                    completer.set(remind(null, today));
+                }
+            };
+            timeoutHandler.postDelayed(timeout, LOAD_TIMEOUT_MS);
+
+            // 1. Check today's progress, from the local cache when possible
+            DailyProgress.loadAsync(new FirestoreHelper(), today, getBackgroundExecutor(), progress -> {
+                if (!finished.compareAndSet(false, true))
+                    return;
+                timeoutHandler.removeCallbacks(timeout);
+                completer.set(remind(progress, today));
+            });
+
+            completer.addCancellationListener(() -> timeoutHandler.removeCallbacks(timeout),
+                    getBackgroundExecutor());
+            return "ReminderWorker " + today;
+        });
+    }
+
+    private Result remind(DailyProgress progress, DateKey today) {
+        Context context = getApplicationContext();
+        int remaining = progress != null ? progress.countRemaining(today) : 0;
+
+        // 2. Only nudge when something is actually left
+        boolean posted = false;
+        if (remaining > 0) {
+            String message = remaining == 1
+                    ? "1 resolution left for today. You've got this!"
+                    : remaining + " resolutions left for today. Take a look 👀";
+            posted = NotificationHelper.showNotification(context, "Reminder", message);
+        }
+        Log.d(TAG, "Remaining: " + remaining + ", posted: " + posted);
+        ReminderStats.recordWakeup(context, posted);
+
+        // 3. Chain the next reminder, tomorrow if today is done or unknown (signed out)
+        ReminderScheduler.scheduleNext(context, remaining == 0);
         return Result.success();
     }
 }
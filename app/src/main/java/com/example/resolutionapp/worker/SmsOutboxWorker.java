@@ -0,0 +1,25 @@
+package com.example.resolutionapp.worker;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.example.resolutionapp.util.SmsOutbox;
+
+/** Drains due messages from the {@link SmsOutbox} and schedules the next retry. */
+public class SmsOutboxWorker extends Worker {
+
+    public SmsOutboxWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        long nextDelay = SmsOutbox.flush(getApplicationContext());
+        if (nextDelay >= 0) {
+            SmsOutbox.scheduleFlush(getApplicationContext(), nextDelay);
+        }
+        return Result.success();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.resolutionapp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.example.resolutionapp.model.ChatMessage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** What the shared client puts on the wire, checked against a local MockWebServer. */
+public class GeminiHttpTest {
+
+    private final MockWebServer server = new MockWebServer();
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        server.enqueue(new MockResponse().setBody("{}"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void streamedBodyIsGzippedWithoutALength() throws Exception {
+        List<ChatMessage> history = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            history.add(new ChatMessage(ChatMessage.ROLE_USER, "How do I keep my streak going? " + i, i));
+        }
+        post(GeminiJson.requestBody(history, 0, history.size(), "What now?", "Be brief."));
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertNull(request.getHeader("Content-Length"));
+
+        Buffer expected = new Buffer();
+        GeminiJson.writeRequest(expected, history, 0, history.size(), "What now?", "Be brief.");
+        Buffer unzipped = new Buffer();
+        try (GzipSource source = new GzipSource(request.getBody())) {
+            while (source.read(unzipped, 8192) != -1) {
+                // Drain
+            }
+        }
+        assertEquals(expected.readUtf8(), unzipped.readUtf8());
+    }
+
+    @Test
+    public void smallBodyOfKnownLengthIsSentAsIs() throws Exception {
+        post(RequestBody.create("{\"contents\":[]}", MediaType.get("application/json; charset=utf-8")));
+
+        RecordedRequest request = server.takeRequest();
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals("{\"contents\":[]}", request.getBody().readUtf8());
+    }
+
+    private void post(RequestBody body) throws IOException {
+        Request request = new Request.Builder().url(server.url("/v1beta/models/gemini-1.5-flash:generateContent"))
+                .post(body)
+                .build();
+        try (Response response = GeminiHttp.client().newCall(request).execute()) {
+            assertEquals(200, response.code());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.resolutionapp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.example.resolutionapp.model.ChatMessage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Bytes allocated per request and per reply by {@link GeminiJson}, against
+ * the org.json tree and String it replaced. Runs on the JVM, where the
+ * allocation counter is exact per thread. Skipped in the normal test run;
+ * run it with
+ * ./gradlew :app:testDebugUnitTest --tests '*GeminiJsonAllocationBenchmark' -Pbenchmark
+ * and the numbers are in the assertion messages.
+ */
+public class GeminiJsonAllocationBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 2_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private List<ChatMessage> history;
+    private String reply;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Benchmarks run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+
+        history = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            history.add(new ChatMessage(i % 2 == 0 ? ChatMessage.ROLE_USER : ChatMessage.ROLE_MODEL,
+                    "Turn " + i + ": how do I keep my \"morning run\" streak going?\nSome more text here.", i));
+        }
+
+        // A typical reply: one candidate, a few parts, safety ratings and usage metadata to skip
+        JSONArray parts = new JSONArray();
+        for (int i = 0; i < 3; i++) {
+            parts.put(new JSONObject().put("text", "Keep the run short on busy days, part " + i + ". "));
+        }
+        JSONArray ratings = new JSONArray();
+        for (String category : new String[] { "HARASSMENT", "HATE_SPEECH", "SEXUALLY_EXPLICIT", "DANGEROUS" }) {
+            ratings.put(new JSONObject()
+                    .put("category", "HARM_CATEGORY_" + category)
+                    .put("probability", "NEGLIGIBLE"));
+        }
+        reply = new JSONObject()
+                .put("candidates", new JSONArray().put(new JSONObject()
+                        .put("content", new JSONObject().put("role", "model").put("parts", parts))
+                        .put("finishReason", "STOP")
+                        .put("index", 0)
+                        .put("safetyRatings", ratings)))
+                .put("usageMetadata", new JSONObject().put("promptTokenCount", 812).put("totalTokenCount", 880))
+                .toString();
+    }
+
+    @Test
+    public void requestWritesSameJsonWithFewerAllocations() throws Exception {
+        Buffer streamed = new Buffer();
+        GeminiJson.requestBody(history, 0, history.size(), "What now?", "Be brief.").writeTo(streamed);
+        JSONArray contents = new JSONObject(streamed.readUtf8()).getJSONArray("contents");
+        assertEquals(history.size() + 3, contents.length());
+        for (int i = 0; i < history.size(); i++) {
+            JSONObject turn = contents.getJSONObject(i + 2);
+            assertEquals(history.get(i).getRole(), turn.getString("role"));
+            assertEquals(history.get(i).getContent(),
+                    turn.getJSONArray("parts").getJSONObject(0).getString("text"));
+        }
+
+        long streaming = bytesPerOp(() -> {
+            BufferedSink sink = Okio.buffer(Okio.blackhole());
+            GeminiJson.requestBody(history, 0, history.size(), "What now?", "Be brief.").writeTo(sink);
+            sink.flush();
+        });
+        long baseline = bytesPerOp(() -> {
+            BufferedSink sink = Okio.buffer(Okio.blackhole());
+            treeRequestBody().writeTo(sink);
+            sink.flush();
+        });
+        assertTrue("Request: streaming " + streaming + " B/op, not below org.json " + baseline + " B/op",
+                streaming < baseline);
+    }
+
+    @Test
+    public void replyReadsSameTextWithFewerAllocations() throws Exception {
+        assertEquals(treeText(reply), GeminiJson.readText(new Buffer().writeUtf8(reply)));
+
+        Buffer body = new Buffer().writeUtf8(reply);
+        long streaming = bytesPerOp(() -> GeminiJson.readText(body.clone()));
+        long baseline = bytesPerOp(() -> treeText(body.clone().readUtf8()));
+        assertTrue("Reply: streaming " + streaming + " B/op, not below org.json " + baseline + " B/op",
+                streaming < baseline);
+    }
+
+    private interface Op {
+        void run() throws Exception;
+    }
+
+    private long bytesPerOp(Op op) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            op.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / ITERATIONS;
+    }
+
+    // What GeminiHelper did before GeminiJson: build the tree, then send it as one String
+    private RequestBody treeRequestBody() throws Exception {
+        JSONArray contents = new JSONArray();
+        contents.put(treeTurn(ChatMessage.ROLE_USER, "System Context: Be brief."));
+        contents.put(treeTurn(ChatMessage.ROLE_MODEL, "Understood."));
+        for (ChatMessage msg : history) {
+            contents.put(treeTurn(msg.getRole(), msg.getContent()));
+        }
+        contents.put(treeTurn(ChatMessage.ROLE_USER, "What now?"));
+        return RequestBody.create(new JSONObject().put("contents", contents).toString(),
+                MediaType.get("application/json; charset=utf-8"));
+    }
+
+    private static JSONObject treeTurn(String role, String text) throws Exception {
+        return new JSONObject()
+                .put("role", role)
+                .put("parts", new JSONArray().put(new JSONObject().put("text", text)));
+    }
+
+    private static String treeText(String body) throws Exception {
+        JSONArray candidates = new JSONObject(body).optJSONArray("candidates");
+        if (candidates == null || candidates.length() == 0)
+            return null;
+        JSONObject content = candidates.getJSONObject(0).optJSONObject("content");
+        if (content == null)
+            return "";
+        JSONArray parts = content.optJSONArray("parts");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; parts != null && i < parts.length(); i++) {
+            text.append(parts.getJSONObject(i).optString("text"));
+        }
+        return text.toString();
+    }
+}
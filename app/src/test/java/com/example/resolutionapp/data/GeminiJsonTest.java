@@ -0,0 +1,112 @@
+package com.example.resolutionapp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import okio.Buffer;
+import org.junit.Test;
+
+/** Reads generateContent replies with {@link GeminiJson}'s pull parser, well-formed and not. */
+public class GeminiJsonTest {
+
+    @Test
+    public void joinsPartsOfTheFirstCandidate() throws IOException {
+        assertEquals("Hello world", GeminiJson.readText(
+                "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"Hello \"},{\"text\":\"world\"}]}},"
+                        + "{\"content\":{\"parts\":[{\"text\":\"Second candidate\"}]}}]}"));
+    }
+
+    @Test
+    public void decodesEscapes() throws IOException {
+        assertEquals("\"q\" \\ / \b\f\n\r\t é 😀", GeminiJson.readText(
+                "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+                        + "\"\\\"q\\\" \\\\ \\/ \\b\\f\\n\\r\\t \\u00e9 \\ud83d\\ude00\"}]}}]}"));
+    }
+
+    @Test
+    public void skipsUnknownFieldsOfEveryKind() throws IOException {
+        assertEquals("Hi", GeminiJson.readText(" {\n \"modelVersion\" : \"x\\\"y\" ,"
+                + "\"usageMetadata\":{\"promptTokenCount\":12,\"nested\":[[1,2.5e3],{\"a\":null}]},"
+                + "\"candidates\":[{\"index\":0,\"finishReason\":\"STOP\",\"done\":true,"
+                + "\"content\":{\"role\":\"model\",\"parts\":[{\"thought\":false,\"text\":\"Hi\"}]}}]}"));
+    }
+
+    @Test
+    public void replyWithoutCandidatesIsNull() throws IOException {
+        assertNull(GeminiJson.readText("{\"error\":{\"code\":429,\"message\":\"Quota\"}}"));
+        assertNull(GeminiJson.readText("{\"candidates\":[]}"));
+    }
+
+    @Test
+    public void candidateWithoutContentIsEmpty() throws IOException {
+        assertEquals("", GeminiJson.readText("{\"candidates\":[{\"finishReason\":\"SAFETY\"}]}"));
+    }
+
+    @Test
+    public void malformedRepliesFailWithIOException() {
+        String[] malformed = {
+                "",
+                "   ",
+                "[]",
+                "{",
+                "{\"candidates\"",
+                "{\"candidates\":",
+                "{\"candidates\":[",
+                "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"cut off",
+                "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"ends on \\",
+                "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"\\u12",
+                "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"\\uzzzz\"}]}}]}",
+                "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":42}]}}]}",
+                "{\"candidates\":[{\"content\":{\"parts\":\"text\"}}]}",
+                "{\"candidates\":[{\"content\":null}]}",
+                "{\"candidates\":{}}",
+                "{\"candidates\":[}",
+                "{candidates:[]}",
+                "{\"candidates\" []}",
+                "{\"other\":tru",
+                "{\"other\":[1,2",
+                "{\"other\":{1:2}}",
+                "{\"other\":\"unterminated}",
+                "{\"other\":" + repeat('[', 100_000),
+        };
+        for (String body : malformed) {
+            try {
+                GeminiJson.readText(new Buffer().writeUtf8(body));
+                fail("Expected an IOException for " + abbreviate(body));
+            } catch (IOException expected) {
+                // Reported as a failed request, not a crash
+            }
+        }
+    }
+
+    @Test
+    public void malformedEventFailsAfterEarlierChunks() {
+        Buffer stream = new Buffer().writeUtf8(
+                "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"First\"}]}}]}\n\n"
+                        + "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":}]}}]}\n\n"
+                        + "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"Never read\"}]}}]}\n\n");
+        List<String> chunks = new ArrayList<>();
+        try {
+            GeminiJson.readEvents(stream, chunks::add);
+            fail("Expected the malformed event to fail");
+        } catch (IOException expected) {
+            // Missing value
+        }
+        assertEquals(Arrays.asList("First"), chunks);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static String abbreviate(String body) {
+        return body.length() > 60 ? body.substring(0, 60) + "..." : body;
+    }
+}
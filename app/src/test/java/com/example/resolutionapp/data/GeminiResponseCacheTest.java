@@ -0,0 +1,113 @@
+package com.example.resolutionapp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import com.example.resolutionapp.model.ChatMessage;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GeminiResponseCacheTest {
+
+    // Each entry is an 8 byte timestamp plus the text, so three of these fit and a fourth doesn't
+    private static final String TEXT = repeat('x', 100);
+    private static final long MAX_BYTES = 350;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private GeminiResponseCache cache;
+
+    @Before
+    public void setUp() {
+        dir = new File(folder.getRoot(), "gemini_responses");
+        cache = new GeminiResponseCache(dir, MAX_BYTES);
+    }
+
+    @Test
+    public void hit() {
+        cache.put("a", "Drink water first thing.");
+
+        assertEquals("Drink water first thing.", cache.get("a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void hitAfterRestart() {
+        cache.put("a", TEXT);
+
+        GeminiResponseCache reopened = new GeminiResponseCache(dir, MAX_BYTES);
+        assertEquals(TEXT, reopened.get("a"));
+    }
+
+    @Test
+    public void miss() {
+        assertNull(cache.get("missing"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void expiredEntryIsMissAndDeleted() throws Exception {
+        cache.setTtl(1, TimeUnit.MILLISECONDS);
+        cache.put("a", TEXT);
+        Thread.sleep(20);
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getMissCount());
+        assertFalse(new File(dir, "a").exists());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        cache.put("a", TEXT);
+        cache.put("b", TEXT);
+        cache.put("c", TEXT);
+        cache.get("a"); // Now b is the eldest
+
+        cache.put("d", TEXT);
+
+        assertNull(cache.get("b"));
+        assertFalse(new File(dir, "b").exists());
+        assertEquals(TEXT, cache.get("a"));
+        assertEquals(TEXT, cache.get("c"));
+        assertEquals(TEXT, cache.get("d"));
+    }
+
+    @Test
+    public void unfinishedWriteIsNeverServed() throws Exception {
+        cache.put("a", TEXT);
+        // What a crash halfway through put("b", ...) leaves behind
+        dir.mkdirs();
+        Files.write(new File(dir, "b.tmp").toPath(), "trunc".getBytes(StandardCharsets.UTF_8));
+
+        GeminiResponseCache reopened = new GeminiResponseCache(dir, MAX_BYTES);
+        assertNull(reopened.get("b"));
+        assertNull(reopened.get("b.tmp"));
+        assertFalse(new File(dir, "b.tmp").exists());
+        assertEquals(TEXT, reopened.get("a"));
+    }
+
+    @Test
+    public void keySeparatesFields() {
+        String joined = GeminiResponseCache.key("model", "ab", Collections.<ChatMessage>emptyList(), "c");
+        String split = GeminiResponseCache.key("model", "a", Collections.<ChatMessage>emptyList(), "bc");
+        assertFalse(joined.equals(split));
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        java.util.Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
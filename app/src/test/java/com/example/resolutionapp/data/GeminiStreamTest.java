@@ -0,0 +1,112 @@
+package com.example.resolutionapp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Parses streamGenerateContent replies served by a local MockWebServer. */
+public class GeminiStreamTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final OkHttpClient client = new OkHttpClient();
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void chunksArriveInOrder() throws Exception {
+        server.enqueue(sse(event("Keep "), event("it "), event("small.")));
+
+        assertEquals(Arrays.asList("Keep ", "it ", "small."), stream());
+    }
+
+    @Test
+    public void eventsSplitAcrossReadsAreReassembled() throws Exception {
+        // A few bytes per read, so events and even escapes are cut mid-way
+        server.enqueue(sse(event("Walk \\\"after\\\" lunch"), event(" today\\n"))
+                .throttleBody(7, 1, TimeUnit.MILLISECONDS));
+
+        assertEquals(Arrays.asList("Walk \"after\" lunch", " today\n"), stream());
+    }
+
+    @Test
+    public void eventsWithoutTextAreSkipped() throws Exception {
+        server.enqueue(sse(
+                ": keep-alive comment\n\n",
+                event("Done."),
+                "data: {\"candidates\":[{\"finishReason\":\"STOP\",\"index\":0}],"
+                        + "\"usageMetadata\":{\"promptTokenCount\":12,\"totalTokenCount\":20}}\n\n",
+                "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"\"}],\"role\":\"model\"}}]}\n\n"));
+
+        assertEquals(Arrays.asList("Done."), stream());
+    }
+
+    @Test
+    public void cutOffEventFailsAfterEarlierChunks() throws Exception {
+        // The stream ends halfway through the second event
+        String cutOff = event("Second part that never finishes");
+        server.enqueue(sse(event("First part. "), cutOff.substring(0, cutOff.length() - 30)));
+
+        List<String> chunks = new ArrayList<>();
+        try {
+            stream(chunks);
+            fail("Expected the cut-off event to fail");
+        } catch (IOException expected) {
+            // Unterminated string
+        }
+        assertEquals(Arrays.asList("First part. "), chunks);
+    }
+
+    private List<String> stream() throws IOException {
+        List<String> chunks = new ArrayList<>();
+        stream(chunks);
+        return chunks;
+    }
+
+    private void stream(List<String> chunks) throws IOException {
+        Request request = new Request.Builder()
+                .url(server.url("/v1beta/models/gemini-1.5-flash:streamGenerateContent?alt=sse"))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            assertTrue(response.isSuccessful());
+            GeminiJson.readEvents(response.body().source(), chunks::add);
+        }
+    }
+
+    private static MockResponse sse(String... events) {
+        StringBuilder body = new StringBuilder();
+        for (String event : events) {
+            body.append(event);
+        }
+        return new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(body.toString());
+    }
+
+    // Text is already JSON-escaped
+    private static String event(String text) {
+        return "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + text
+                + "\"}],\"role\":\"model\"},\"index\":0}]}\r\n\r\n";
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.resolutionapp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.example.resolutionapp.model.DateKey;
+import com.example.resolutionapp.model.Habit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+/** The cached, incrementally updated digest always matches a full rebuild. */
+public class HabitDigestTest {
+
+    private static final DateKey TODAY = DateKey.of(2026, 9, 19);
+
+    private final HabitDigest digest = new HabitDigest();
+    private final Map<DateKey, Set<String>> completed = new HashMap<>();
+    private List<Habit> habits;
+
+    @Before
+    public void setUp() {
+        long created = TODAY.plusDays(-60).toCalendar().getTimeInMillis();
+        Habit run = new Habit("run", "Morning run", "", created);
+        Habit read = new Habit("read", "Read", "", created);
+        Habit review = new Habit("review", "Weekly review", "", created);
+        review.setFrequency(Collections.singletonList("SUNDAY"));
+        habits = new ArrayList<>(Arrays.asList(run, read, review));
+
+        for (int i = 1; i < 40; i++) {
+            Set<String> ids = new HashSet<>();
+            if (i % 2 == 0)
+                ids.add("run");
+            if (i % 3 != 0)
+                ids.add("read");
+            ids.add("review");
+            completed.put(TODAY.plusDays(-i), ids);
+        }
+        digest.onLoaded(habits, new HashMap<>(completed), TODAY.plusDays(-40));
+    }
+
+    @Test
+    public void loadedDigestMatchesBuild() {
+        assertEquals(HabitDigest.build(habits, completed, TODAY), get(TODAY));
+    }
+
+    @Test
+    public void unchangedDigestIsReused() {
+        assertSame(get(TODAY), get(TODAY));
+    }
+
+    @Test
+    public void savedDayUpdatesOnlyWhatChanged() {
+        get(TODAY);
+        save(TODAY, "run");
+        save(TODAY.plusDays(-3), "run", "read", "review");
+        save(TODAY.plusDays(-50), "read"); // Outside the window
+
+        assertEquals(HabitDigest.build(habits, completed, TODAY), get(TODAY));
+    }
+
+    @Test
+    public void rolloverRebuildsForTheNewDay() {
+        get(TODAY);
+        save(TODAY, "read");
+
+        DateKey tomorrow = TODAY.plusDays(1);
+        assertEquals(HabitDigest.build(habits, completed, tomorrow), get(tomorrow));
+    }
+
+    @Test
+    public void habitChangesAreApplied() {
+        get(TODAY);
+        habits.add(new Habit("water", "Drink water", "", TODAY.toCalendar().getTimeInMillis()));
+        digest.onHabitsChanged(habits);
+
+        assertEquals(HabitDigest.build(habits, completed, TODAY), get(TODAY));
+    }
+
+    @Test
+    public void noHabits() {
+        digest.onHabitsChanged(Collections.<Habit>emptyList());
+        assertEquals(HabitDigest.NO_HABITS, get(TODAY));
+    }
+
+    private void save(DateKey date, String... ids) {
+        completed.put(date, new HashSet<>(Arrays.asList(ids)));
+        digest.onResolutionsSaved(date, Arrays.asList(ids));
+    }
+
+    private String get(DateKey asOf) {
+        String[] result = new String[1];
+        digest.get(asOf, text -> result[0] = text);
+        return result[0];
+    }
+}
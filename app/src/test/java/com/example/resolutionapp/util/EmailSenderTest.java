@@ -0,0 +1,174 @@
+package com.example.resolutionapp.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Sends batches through {@link EmailSender} to a plain SMTP server running in the test. */
+public class EmailSenderTest {
+
+    private SmtpServer server;
+    private SmtpConfig config;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new SmtpServer();
+        // No credentials, so no AUTH; a new port per test, so no connection carries over
+        config = new SmtpConfig("127.0.0.1", server.port(), "", "", "reports@example.com",
+                SmtpConfig.SECURITY_NONE);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void batchIsSentInOneSession() throws Exception {
+        List<Boolean> results = send(
+                new EmailSender.Email("a@example.com", "Report 1", "Body 1"),
+                new EmailSender.Email("b@example.com, c@example.com", "Report 2", "Body 2"),
+                new EmailSender.Email("d@example.com", "Report 3", "Body 3"));
+
+        assertEquals(Arrays.asList(true, true, true), results);
+        assertEquals(1, server.sessions.get());
+        assertEquals(Arrays.asList("a@example.com", "b@example.com,c@example.com", "d@example.com"),
+                server.recipients);
+    }
+
+    @Test
+    public void rejectedEmailFailsAloneAndKeepsTheSession() throws Exception {
+        List<Boolean> results = send(
+                new EmailSender.Email("a@example.com", "Report 1", "Body 1"),
+                new EmailSender.Email("bounce@example.com", "Report 2", "Body 2"),
+                new EmailSender.Email("d@example.com", "Report 3", "Body 3"));
+
+        assertEquals(Arrays.asList(true, false, true), results);
+        assertEquals(1, server.sessions.get());
+        assertEquals(Arrays.asList("a@example.com", "d@example.com"), server.recipients);
+    }
+
+    @Test
+    public void batchCutShortStillReportsEveryEmail() throws Exception {
+        // A null recipient throws a runtime exception rather than a MessagingException
+        List<Boolean> results = send(
+                new EmailSender.Email("a@example.com", "Report 1", "Body 1"),
+                new EmailSender.Email(null, "Report 2", "Body 2"),
+                new EmailSender.Email("d@example.com", "Report 3", "Body 3"));
+
+        assertEquals(Arrays.asList(true, false, false), results);
+    }
+
+    // Returns what the callback saw, which must be called even when the batch throws
+    private List<Boolean> send(EmailSender.Email... emails) throws Exception {
+        AtomicReference<List<Boolean>> reported = new AtomicReference<>();
+        try {
+            EmailSender.getInstance().sendBatch(config, Arrays.asList(emails), reported::set)
+                    .get(30, TimeUnit.SECONDS);
+        } catch (java.util.concurrent.ExecutionException expected) {
+            // The batch rethrows what cut it short
+        }
+        return reported.get();
+    }
+
+    /** Just enough SMTP for JavaMail: one thread per session, RCPT to "bounce@" is rejected. */
+    private static final class SmtpServer implements Runnable {
+        final AtomicInteger sessions = new AtomicInteger();
+        final List<String> recipients = Collections.synchronizedList(new ArrayList<>());
+        private final ServerSocket socket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+
+        SmtpServer() throws IOException {
+            Thread thread = new Thread(this, "SmtpServer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+
+        @Override
+        public void run() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket client = socket.accept();
+                    sessions.incrementAndGet();
+                    Thread session = new Thread(() -> serve(client), "SmtpSession");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return; // Closed
+                }
+            }
+        }
+
+        private void serve(Socket client) {
+            try (Socket s = client;
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                    Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost ESMTP");
+                List<String> to = new ArrayList<>();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase(java.util.Locale.US);
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 localhost");
+                    } else if (command.startsWith("MAIL FROM") || command.startsWith("RSET")) {
+                        to.clear();
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("RCPT TO")) {
+                        if (command.contains("BOUNCE@")) {
+                            reply(out, "550 No such user");
+                        } else {
+                            to.add(line.substring(line.indexOf('<') + 1, line.indexOf('>')));
+                            reply(out, "250 OK");
+                        }
+                    } else if (command.equals("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Body is not checked
+                        }
+                        recipients.add(String.join(",", to));
+                        to.clear();
+                        reply(out, "250 OK");
+                    } else if (command.equals("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+    }
+}
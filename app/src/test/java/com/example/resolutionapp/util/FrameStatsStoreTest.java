@@ -0,0 +1,56 @@
+package com.example.resolutionapp.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FrameStatsStoreTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long HZ_60 = 16_666_666L;
+    private static final long HZ_120 = 8_333_333L;
+
+    private final FrameStatsStore store = new FrameStatsStore();
+
+    @Test
+    public void slowIsRelativeToTheDisplaysRefreshRate() {
+        // A 12 ms frame is on time at 60 Hz but misses a refresh at 120 Hz
+        store.record("60hz", 12 * MS, HZ_60);
+        store.record("120hz", 12 * MS, HZ_120);
+        store.record("120hz", 8 * MS, HZ_120);
+
+        assertEquals(0, stats("60hz").slowFrames);
+        assertEquals(1, stats("120hz").slowFrames);
+        assertEquals(2, stats("120hz").totalFrames);
+    }
+
+    @Test
+    public void frozenIsNotAlsoSlow() {
+        store.record("main", 800 * MS, HZ_60);
+        store.record("main", 20 * MS, HZ_60);
+
+        FrameStatsStore.ScreenStats stats = stats("main");
+        assertEquals(1, stats.frozenFrames);
+        assertEquals(1, stats.slowFrames);
+    }
+
+    @Test
+    public void percentilesCoverBufferedFrames() {
+        for (int i = 1; i <= 100; i++) {
+            store.record("main", i * MS, HZ_60);
+        }
+
+        FrameStatsStore.ScreenStats stats = stats("main");
+        assertEquals(50.0, stats.p50Ms, 0.001);
+        assertEquals(95.0, stats.p95Ms, 0.001);
+        assertEquals(99.0, stats.p99Ms, 0.001);
+    }
+
+    private FrameStatsStore.ScreenStats stats(String screen) {
+        for (FrameStatsStore.ScreenStats stats : store.snapshot()) {
+            if (stats.screen.equals(screen))
+                return stats;
+        }
+        throw new AssertionError("No frames for " + screen);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.resolutionapp.baselineprofile;
+
+import android.content.Intent;
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Generates the app's Baseline Profile from the critical paths: startup, the
+ * Stats heatmap and today's checklist. Run with
+ * {@code ./gradlew :app:generateBaselineProfile}; the result is written to
+ * app/src/release/generated/baselineProfiles and shipped with the APK.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class BaselineProfileGenerator {
+
+    private static final String PACKAGE_NAME = "com.example.resolutionapp";
+    private static final long TIMEOUT_MS = 5_000;
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(PACKAGE_NAME, scope -> {
+            UiDevice device = scope.getDevice();
+
+            // 1. Startup into the calendar tab
+            scope.pressHome();
+            Intent main = new Intent();
+            main.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".MainActivity");
+            scope.startActivityAndWait(main);
+
+            // 2. Page through adjacent months
+            UiObject2 months = device.wait(Until.findObject(By.res(PACKAGE_NAME, "vpMonths")), TIMEOUT_MS);
+            if (months != null) {
+                months.swipe(Direction.RIGHT, 0.8f);
+                device.waitForIdle();
+                months.swipe(Direction.LEFT, 0.8f);
+                device.waitForIdle();
+            }
+
+            // 3. Stats heatmap
+            UiObject2 statsTab = device.wait(Until.findObject(By.res(PACKAGE_NAME, "nav_stats")), TIMEOUT_MS);
+            if (statsTab != null) {
+                statsTab.click();
+                device.wait(Until.hasObject(By.res(PACKAGE_NAME, "heatmapView")), TIMEOUT_MS);
+                device.waitForIdle();
+            }
+
+            // 4. Today's checklist, including first scroll
+            Intent today = new Intent();
+            today.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".DailyResolutionsActivity");
+            today.putExtra("DATE", new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date()));
+            today.putExtra("IS_PAST", false);
+            scope.startActivityAndWait(today);
+            UiObject2 list = device.wait(Until.findObject(By.res(PACKAGE_NAME, "rvResolutions")), TIMEOUT_MS);
+            if (list != null) {
+                list.setGestureMargin(device.getDisplayWidth() / 5);
+                list.fling(Direction.DOWN);
+                device.waitForIdle();
+            }
+            return Unit.INSTANCE;
+        });
+    }
+}
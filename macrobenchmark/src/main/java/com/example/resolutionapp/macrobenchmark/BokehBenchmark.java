@@ -0,0 +1,51 @@
+package com.example.resolutionapp.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.Collections;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Frame times while the completion bokeh plays, once with the cached glow
+ * sprites and once with plain circles, so the two draw paths can be compared
+ * on the same device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BokehBenchmark {
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void sprites() {
+        measure(true);
+    }
+
+    @Test
+    public void circles() {
+        measure(false);
+    }
+
+    private void measure(boolean sprites) {
+        benchmarkRule.measureRepeated(
+                Flows.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(),
+                null,
+                5,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait(Flows.bokehIntent(sprites));
+                    Flows.waitForBokeh(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
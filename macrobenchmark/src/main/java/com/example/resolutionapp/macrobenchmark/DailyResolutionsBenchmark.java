@@ -0,0 +1,41 @@
+package com.example.resolutionapp.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.Collections;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Opening today's checklist. timeToFullDisplay covers open-to-populated, since
+ * the activity calls reportFullyDrawn() once habits and resolutions are bound.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DailyResolutionsBenchmark {
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void openToPopulated() {
+        benchmarkRule.measureRepeated(
+                Flows.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                new CompilationMode.Partial(),
+                StartupMode.WARM,
+                10,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait(Flows.todayIntent());
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.resolutionapp.macrobenchmark;
+
+import android.content.Intent;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/** User journeys shared by the benchmarks. */
+final class Flows {
+
+    static final String PACKAGE_NAME = "com.example.resolutionapp";
+    private static final long TIMEOUT_MS = 5_000;
+
+    private Flows() {
+    }
+
+    static Intent mainActivityIntent() {
+        Intent intent = new Intent();
+        intent.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".MainActivity");
+        return intent;
+    }
+
+    // DailyResolutionsActivity is only exported in the benchmark build type
+    static Intent todayIntent() {
+        Intent intent = new Intent();
+        intent.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".DailyResolutionsActivity");
+        intent.putExtra("DATE", new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date()));
+        intent.putExtra("IS_PAST", false);
+        return intent;
+    }
+
+    // The completion bokeh on its own; BokehBenchmarkActivity only exists in the benchmark build type
+    static Intent bokehIntent(boolean sprites) {
+        Intent intent = new Intent();
+        intent.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".BokehBenchmarkActivity");
+        intent.putExtra("SPRITES", sprites);
+        return intent;
+    }
+
+    /** Waits for the 5 second bokeh to start and run out. */
+    static void waitForBokeh(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "bokehView")), TIMEOUT_MS);
+        device.wait(Until.gone(By.res(PACKAGE_NAME, "bokehView")), 2 * TIMEOUT_MS);
+    }
+
+    static void openStatsTab(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 statsTab = device.wait(Until.findObject(By.res(PACKAGE_NAME, "nav_stats")), TIMEOUT_MS);
+        statsTab.click();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "heatmapView")), TIMEOUT_MS);
+        device.waitForIdle();
+    }
+}
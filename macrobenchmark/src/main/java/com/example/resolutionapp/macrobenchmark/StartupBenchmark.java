@@ -0,0 +1,47 @@
+package com.example.resolutionapp.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.Collections;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Cold and warm startup of MainActivity. */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartup() {
+        startup(StartupMode.COLD);
+    }
+
+    @Test
+    public void warmStartup() {
+        startup(StartupMode.WARM);
+    }
+
+    private void startup(StartupMode startupMode) {
+        benchmarkRule.measureRepeated(
+                Flows.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                new CompilationMode.Partial(),
+                startupMode,
+                10,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait(Flows.mainActivityIntent());
+                    return Unit.INSTANCE;
+                });
+    }
+}
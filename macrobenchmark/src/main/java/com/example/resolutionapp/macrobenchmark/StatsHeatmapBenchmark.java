@@ -0,0 +1,46 @@
+package com.example.resolutionapp.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.Arrays;
+import java.util.List;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Switching to the Stats tab until the heatmap has been populated. */
+@RunWith(AndroidJUnit4.class)
+public class StatsHeatmapBenchmark {
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void openStats() {
+        // Section is emitted by StatsFragment around streak + heatmap population
+        List<Metric> metrics = Arrays.asList(
+                new TraceSectionMetric("StatsFragment.populateHeatmap"),
+                new FrameTimingMetric());
+
+        benchmarkRule.measureRepeated(
+                Flows.PACKAGE_NAME,
+                metrics,
+                new CompilationMode.Partial(),
+                null,
+                10,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait(Flows.mainActivityIntent());
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Flows.openStatsTab(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}